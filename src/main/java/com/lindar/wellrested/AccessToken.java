@@ -0,0 +1,35 @@
+package com.lindar.wellrested;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * A bearer token returned by a {@link TokenProvider} and the time it expires at, null if it never expires
+ */
+@Getter
+@ToString(exclude = "value")
+public class AccessToken {
+    private final String  value;
+    private final Instant expiresAt;
+
+    public AccessToken(String value, Instant expiresAt) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("The access token can't be empty");
+        }
+        this.value = value;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * A token that expires the given number of seconds from now, as in the {@code expires_in} field of an OAuth2 token response
+     */
+    public static AccessToken expiringIn(String value, long expiresInSeconds) {
+        return new AccessToken(value, Instant.now().plusSeconds(expiresInSeconds));
+    }
+
+    public static AccessToken neverExpiring(String value) {
+        return new AccessToken(value, null);
+    }
+}
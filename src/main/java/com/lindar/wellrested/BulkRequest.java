@@ -0,0 +1,157 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Submits a batch of requests with a bounded number of requests in flight, eg:
+ * <pre>
+ * List&lt;WellRestedResponse&gt; responses = BulkRequest.of(requests).maxConcurrency(20).submit();
+ * </pre>
+ * A new request is only submitted when a previous one completes, so no more than {@code maxConcurrency}
+ * pooled connections are used by the batch at any time. The responses are returned in the same order as the requests.
+ */
+public class BulkRequest {
+    private static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    private final List<RequestResource> requests;
+
+    private int                                     maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    private BiConsumer<Integer, WellRestedResponse> responseListener;
+
+    private BulkRequest(Collection<? extends RequestResource> requests) {
+        this.requests = new ArrayList<>(requests);
+    }
+
+    public static BulkRequest of(Collection<? extends RequestResource> requests) {
+        return new BulkRequest(requests);
+    }
+
+    /**
+     * Sets the maximum number of requests in flight at the same time. Default: {@code 10}
+     */
+    public BulkRequest maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * Use this method to stream the responses as each request completes (in completion order).
+     * The listener receives the index of the request in the batch along with its response.
+     */
+    public BulkRequest onResponse(BiConsumer<Integer, WellRestedResponse> responseListener) {
+        this.responseListener = responseListener;
+        return this;
+    }
+
+    /**
+     * Submits the batch and waits for all the responses
+     */
+    public List<WellRestedResponse> submit() {
+        return submitAsync().join();
+    }
+
+    /**
+     * Submits the batch without blocking the calling thread.
+     * If one of the request futures fails (eg: it was cancelled) or the response listener throws, the returned future fails too,
+     * no more requests are submitted and the ones in flight are cancelled. Cancelling the returned future cancels them as well.
+     */
+    public CompletableFuture<List<WellRestedResponse>> submitAsync() {
+        CompletableFuture<List<WellRestedResponse>> result = new CompletableFuture<>();
+        if (requests.isEmpty()) {
+            result.complete(Collections.emptyList());
+            return result;
+        }
+
+        Batch batch = new Batch(result);
+        for (int i = 0; i < Math.min(maxConcurrency, requests.size()); i++) {
+            batch.submitNext();
+        }
+        return result;
+    }
+
+    private class Batch {
+        private final WellRestedResponse[]                        responses = new WellRestedResponse[requests.size()];
+        private final AtomicInteger                               next      = new AtomicInteger();
+        private final AtomicInteger                               remaining = new AtomicInteger(requests.size());
+        private final AtomicInteger                               submits   = new AtomicInteger();
+        private final Set<CompletableFuture<WellRestedResponse>>  inFlight  = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<List<WellRestedResponse>> result;
+
+        private Batch(CompletableFuture<List<WellRestedResponse>> result) {
+            this.result = result;
+            result.whenComplete((responses, ex) -> {
+                if (ex != null) {
+                    inFlight.forEach(future -> future.cancel(true));
+                }
+            });
+        }
+
+        /**
+         * Submits the next request, or leaves it to the submitting thread when one is already looping: a request that completes
+         * straight away (eg: rejected by load shedding) starts the next one from its callback, which would otherwise nest a call
+         * per request on the stack
+         */
+        private void submitNext() {
+            if (submits.getAndIncrement() > 0) {
+                return;
+            }
+            do {
+                submit();
+            } while (submits.decrementAndGet() > 0);
+        }
+
+        private void submit() {
+            int index = next.getAndIncrement();
+            if (index >= requests.size() || result.isDone()) {
+                return;
+            }
+            CompletableFuture<WellRestedResponse> future;
+            try {
+                future = requests.get(index).submitAsync();
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            inFlight.add(future);
+            if (result.isCompletedExceptionally()) {
+                // the batch failed while the request was submitted
+                future.cancel(true);
+            }
+            future.whenComplete((response, ex) -> {
+                inFlight.remove(future);
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                    return;
+                }
+                responses[index] = response;
+                if (responseListener != null) {
+                    try {
+                        responseListener.accept(index, response);
+                    } catch (RuntimeException listenerEx) {
+                        result.completeExceptionally(listenerEx);
+                        return;
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    result.complete(Arrays.asList(responses));
+                } else {
+                    submitNext();
+                }
+            });
+        }
+    }
+}
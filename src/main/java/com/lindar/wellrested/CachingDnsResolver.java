@@ -0,0 +1,207 @@
+package com.lindar.wellrested;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.DnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Caches the addresses of each host for a fixed time to live, so opening a pooled connection doesn't wait for the resolver.
+ * <ul>
+ * <li>Three quarters into the TTL the record is refreshed in the background if the host was looked up since it was cached,
+ * otherwise it is evicted. At most {@link #MAX_HOSTS} hosts are cached, the records closest to expiry are evicted first.</li>
+ * <li>Concurrent lookups of the same host share a single call to the resolver.</li>
+ * <li>Once the TTL has passed, the lookup resolves the host again, but if the resolver fails the last good record
+ * is served and the resolver is retried after a short delay.</li>
+ * <li>The addresses are returned in random order so that connections are spread across all the records of a host.</li>
+ * </ul>
+ */
+@Slf4j
+class CachingDnsResolver implements DnsResolver {
+    static final int MAX_HOSTS = 1024;
+
+    private static final long MAX_RETRY_DELAY = 1000;
+
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "well-rested-dns-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DnsResolver                                     delegate;
+    private final long                                            ttl;
+    private final int                                             maxHosts;
+    private final ObjLongConsumer<Runnable>                       scheduler;
+    private final LongSupplier                                    clock;
+    private final ConcurrentMap<String, Entry>                    entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Entry>> pending = new ConcurrentHashMap<>();
+
+    CachingDnsResolver(DnsResolver delegate, long ttl) {
+        this(delegate, ttl, MAX_HOSTS, (task, delay) -> Timers.schedule(() -> REFRESH_EXECUTOR.execute(task), delay),
+             System::currentTimeMillis);
+    }
+
+    /**
+     * @param scheduler runs the given refresh after the given delay in milliseconds
+     */
+    CachingDnsResolver(DnsResolver delegate, long ttl, int maxHosts, ObjLongConsumer<Runnable> scheduler, LongSupplier clock) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("The DNS cache TTL must be positive");
+        }
+        if (maxHosts <= 0) {
+            throw new IllegalArgumentException("The DNS cache must hold at least one host");
+        }
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.maxHosts = maxHosts;
+        this.scheduler = scheduler;
+        this.clock = clock;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(host);
+        if (entry == null || now >= entry.expiresAt) {
+            entry = resolveExpired(host, entry, now);
+        }
+        if (!entry.used) {
+            entry.used = true;
+        }
+        return shuffle(entry.addresses);
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    private Entry resolveExpired(String host, Entry stale, long now) throws UnknownHostException {
+        try {
+            return lookup(host, stale);
+        } catch (UnknownHostException ex) {
+            if (stale == null) {
+                throw ex;
+            }
+            long retryAt = now + Math.min(ttl, MAX_RETRY_DELAY);
+            Entry retry = new Entry(stale.addresses, retryAt);
+            if (entries.replace(host, stale, retry)) {
+                log.warn("Failed to resolve {}, using the cached addresses: {}", host, ex.getMessage());
+            }
+            return retry;
+        }
+    }
+
+    /**
+     * Resolves the host unless another lookup of the host is pending, in which case its result is shared.
+     * The caller passes the record it last saw, if that record was replaced meanwhile the new one is returned as it is.
+     */
+    private Entry lookup(String host, Entry seen) throws UnknownHostException {
+        CompletableFuture<Entry> lookup = new CompletableFuture<>();
+        CompletableFuture<Entry> pendingLookup = pending.putIfAbsent(host, lookup);
+        if (pendingLookup != null) {
+            return await(pendingLookup);
+        }
+        try {
+            Entry current = entries.get(host);
+            Entry entry = current != null && current != seen ? current : store(host, delegate.resolve(host));
+            lookup.complete(entry);
+            return entry;
+        } catch (UnknownHostException | RuntimeException ex) {
+            lookup.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            pending.remove(host, lookup);
+        }
+    }
+
+    private void refresh(String host, Entry entry) {
+        if (entries.get(host) != entry) {
+            return;
+        }
+        if (!entry.used) {
+            entries.remove(host, entry);
+            return;
+        }
+        try {
+            lookup(host, entry);
+        } catch (UnknownHostException | RuntimeException ex) {
+            log.warn("Failed to refresh the addresses of {}, the cached addresses are kept: {}", host, ex.getMessage());
+        }
+    }
+
+    private Entry store(String host, InetAddress[] addresses) throws UnknownHostException {
+        if (addresses == null || addresses.length == 0) {
+            throw new UnknownHostException(host);
+        }
+        Entry entry = new Entry(addresses.clone(), clock.getAsLong() + ttl);
+        entries.put(host, entry);
+        if (entries.size() > maxHosts) {
+            evictClosestToExpiry(host);
+        }
+        scheduler.accept(() -> refresh(host, entry), ttl * 3 / 4);
+        return entry;
+    }
+
+    private void evictClosestToExpiry(String keep) {
+        Map.Entry<String, Entry> eldest = null;
+        for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+            if (!candidate.getKey().equals(keep) && (eldest == null || candidate.getValue().expiresAt < eldest.getValue().expiresAt)) {
+                eldest = candidate;
+            }
+        }
+        if (eldest != null) {
+            entries.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> lookup) throws UnknownHostException {
+        try {
+            return lookup.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UnknownHostException) {
+                throw (UnknownHostException) ex.getCause();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private static InetAddress[] shuffle(InetAddress[] addresses) {
+        InetAddress[] shuffled = addresses.clone();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            InetAddress address = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = address;
+        }
+        return shuffled;
+    }
+
+    private static class Entry {
+        private final InetAddress[] addresses;
+        private final long          expiresAt;
+
+        // whether the record was looked up since it was cached, records nobody uses are evicted instead of refreshed
+        private volatile boolean used;
+
+        private Entry(InetAddress[] addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches access tokens from an OAuth2 token endpoint with the client credentials grant. The client id and secret are sent
+ * with Basic authentication, the {@code access_token} and {@code expires_in} fields of the response make the token.
+ * <pre>
+ * WellRestedRequest api = WellRestedRequest.builder()
+ *                                          .url("https://api.example.com")
+ *                                          .tokenProvider(new ClientCredentialsTokenProvider("https://auth.example.com/oauth2/token", clientId, clientSecret, "orders:read"))
+ *                                          .build();
+ * </pre>
+ */
+public class ClientCredentialsTokenProvider implements TokenProvider {
+    private final WellRestedRequest   tokenRequest;
+    private final List<NameValuePair> form;
+
+    public ClientCredentialsTokenProvider(String tokenUrl, String clientId, String clientSecret) {
+        this(tokenUrl, clientId, clientSecret, null);
+    }
+
+    public ClientCredentialsTokenProvider(String tokenUrl, String clientId, String clientSecret, String scope) {
+        this.tokenRequest = WellRestedRequest.builder().url(tokenUrl).credentials(clientId, clientSecret).build();
+        this.form = new ArrayList<>();
+        this.form.add(new BasicNameValuePair("grant_type", "client_credentials"));
+        if (scope != null) {
+            this.form.add(new BasicNameValuePair("scope", scope));
+        }
+    }
+
+    @Override
+    public AccessToken fetchToken() throws IOException {
+        WellRestedResponse response = tokenRequest.post().httpEntity(new UrlEncodedFormEntity(form, StandardCharsets.UTF_8)).submit();
+        if (response.getStatusCode() != 200) {
+            throw new IOException("The token endpoint " + response.getCurrentURI() + " returned " + response.getStatusCode());
+        }
+        Map<?, ?> token = response.fromJson().castTo(Map.class);
+        Object accessToken = token != null ? token.get("access_token") : null;
+        if (!(accessToken instanceof String)) {
+            throw new IOException("The response of the token endpoint " + response.getCurrentURI() + " has no access_token");
+        }
+        Object expiresIn = token.get("expires_in");
+        return expiresIn instanceof Number
+               ? AccessToken.expiringIn((String) accessToken, ((Number) expiresIn).longValue())
+               : AccessToken.neverExpiring((String) accessToken);
+    }
+}
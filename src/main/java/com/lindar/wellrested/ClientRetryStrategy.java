@@ -0,0 +1,46 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.io.IOException;
+
+/**
+ * The retry strategy of the clients built by the library. It's the default strategy of httpclient, which sends a request
+ * once more after an I/O error or a 429 or 503 response, except for the requests of a WellRestedRequest with a
+ * {@link RetryPolicy}: the policy retries those, within its budget.
+ */
+class ClientRetryStrategy implements HttpRequestRetryStrategy {
+    static final ClientRetryStrategy INSTANCE = new ClientRetryStrategy();
+
+    private static final String DISABLED = "com.lindar.wellrested.client-retries-disabled";
+
+    private final HttpRequestRetryStrategy delegate = DefaultHttpRequestRetryStrategy.INSTANCE;
+
+    static void disable(HttpContext context) {
+        context.setAttribute(DISABLED, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        return !isDisabled(context) && delegate.retryRequest(request, exception, execCount, context);
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+        return !isDisabled(context) && delegate.retryRequest(response, execCount, context);
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+        return delegate.getRetryInterval(response, execCount, context);
+    }
+
+    private static boolean isDisabled(HttpContext context) {
+        return context != null && context.getAttribute(DISABLED) != null;
+    }
+}
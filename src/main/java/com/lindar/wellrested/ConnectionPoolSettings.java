@@ -0,0 +1,412 @@
+package com.lindar.wellrested;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.HttpsSupport;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.net.URI;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the connection pool and socket options collected by {@link WellRestedRequestBuilder}.
+ * When any of these is set the builder creates a dedicated pool for the {@link WellRestedRequest}
+ * instead of relying on the shared default client of the fluent API.
+ */
+@Slf4j
+@Getter
+@Setter
+class ConnectionPoolSettings {
+    static final int DEFAULT_MAX_IDLE_TIME = 60000;
+    // the defaults of the pools of httpclient
+    static final int DEFAULT_MAX_CONNECTIONS           = 25;
+    static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
+
+    private static final String CONSCRYPT_PROVIDER = "Conscrypt";
+
+    private Integer                maxConnections;
+    private Integer                maxConnectionsPerRoute;
+    private Map<HttpHost, Integer> maxConnectionsPerHost = new LinkedHashMap<>();
+    private Integer                maxPendingRequestsPerRoute;
+    private boolean                leasePriority;
+    private Map<TrafficClass, Integer> reservedConnections = new EnumMap<>(TrafficClass.class);
+    private Integer                connectionTimeToLive;
+    private Integer                validateAfterInactivity;
+    private Boolean                tcpNoDelay;
+    private Boolean                soKeepAlive;
+    private Integer                socketSendBufferSize;
+    private Integer                socketReceiveBufferSize;
+    private Integer                ioThreadCount;
+    private boolean                http2;
+    private Integer                http2MaxConcurrentStreams;
+    private boolean                pipelining;
+    private Path                   unixDomainSocket;
+    private DnsResolver            dnsResolver;
+    private Integer                dnsCacheTimeToLive;
+    private Integer                maxIdleTime;
+    private Integer                maxKeepAlive;
+
+    private SSLContext             sslContext;
+    private String                 tlsProvider;
+    private Integer                tlsSessionCacheSize;
+    private Integer                tlsSessionTimeout;
+    private String[]               tlsProtocols;
+    private String[]               tlsCipherSuites;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private DnsResolver            effectiveDnsResolver;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SSLContext             effectiveSslContext;
+
+    /**
+     * The settings used by the shared async client, sized like the default client of the fluent API.
+     */
+    static ConnectionPoolSettings defaultSettings() {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setMaxConnections(200);
+        settings.setMaxConnectionsPerRoute(100);
+        settings.setMaxIdleTime(DEFAULT_MAX_IDLE_TIME);
+        return settings;
+    }
+
+    void addMaxConnectionsPerHost(String url, int maxConnections) {
+        this.maxConnectionsPerHost.put(toHttpHost(URI.create(url)), maxConnections);
+    }
+
+    /**
+     * The maximum number of connections the pools open to the given host, within the limit of the whole pool
+     */
+    int maxConnectionsPerRoute(HttpHost host) {
+        Integer max = maxConnectionsPerHost.get(host);
+        if (max == null) {
+            max = maxConnectionsPerRoute != null ? maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        }
+        return Math.min(max, maxConnections != null ? maxConnections : DEFAULT_MAX_CONNECTIONS);
+    }
+
+    void reserveConnections(TrafficClass trafficClass, int connections) {
+        this.leasePriority = true;
+        this.reservedConnections.put(trafficClass, connections);
+    }
+
+    SocketConfig buildSocketConfig() {
+        SocketConfig.Builder socketConfig = SocketConfig.custom();
+        if (tcpNoDelay != null) {
+            socketConfig.setTcpNoDelay(tcpNoDelay);
+        }
+        if (soKeepAlive != null) {
+            socketConfig.setSoKeepAlive(soKeepAlive);
+        }
+        if (socketSendBufferSize != null) {
+            socketConfig.setSndBufSize(socketSendBufferSize);
+        }
+        if (socketReceiveBufferSize != null) {
+            socketConfig.setRcvBufSize(socketReceiveBufferSize);
+        }
+        return socketConfig.build();
+    }
+
+    PoolingHttpClientConnectionManager buildConnectionManager() {
+        if (unixDomainSocket != null) {
+            return buildUnixDomainSocketConnectionManager();
+        }
+        PoolingHttpClientConnectionManagerBuilder builder = PoolingHttpClientConnectionManagerBuilder.create()
+                .setDefaultSocketConfig(buildSocketConfig())
+                .setDnsResolver(dnsResolver());
+
+        if (maxConnections != null) {
+            builder.setMaxConnTotal(maxConnections);
+        }
+        if (maxConnectionsPerRoute != null) {
+            builder.setMaxConnPerRoute(maxConnectionsPerRoute);
+        }
+        if (connectionTimeToLive != null) {
+            builder.setConnectionTimeToLive(TimeValue.of(connectionTimeToLive, TimeUnit.MILLISECONDS));
+        }
+        if (validateAfterInactivity != null) {
+            builder.setValidateAfterInactivity(TimeValue.of(validateAfterInactivity, TimeUnit.MILLISECONDS));
+        }
+        if (hasTlsSettings()) {
+            builder.setSSLSocketFactory(new SSLConnectionSocketFactory(tlsContext(), tlsProtocols, tlsCipherSuites, HttpsSupport.getDefaultHostnameVerifier()));
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = builder.build();
+        maxConnectionsPerHost.forEach((host, max) -> connectionManager.setMaxPerRoute(toHttpRoute(host), max));
+        return connectionManager;
+    }
+
+    /**
+     * Builds the classic client of the pool. When the client is closed the pool and the eviction thread are closed too.
+     * The leases go through a {@link GatedConnectionManager} so a virtual thread waiting for a connection isn't pinned.
+     */
+    CloseableHttpClient buildHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+        HttpClientBuilder builder = HttpClientBuilder.create()
+                                                     .setConnectionManager(new GatedConnectionManager(connectionManager))
+                                                     .setKeepAliveStrategy(keepAliveStrategy())
+                                                     .setRetryStrategy(ClientRetryStrategy.INSTANCE);
+        if (maxIdleTime != null) {
+            builder.evictExpiredConnections().evictIdleConnections(TimeValue.of(maxIdleTime, TimeUnit.MILLISECONDS));
+        }
+        return builder.build();
+    }
+
+    KeepAliveStrategy keepAliveStrategy() {
+        return new KeepAliveStrategy(maxKeepAlive != null ? maxKeepAlive : KeepAliveStrategy.DEFAULT_MAX_KEEP_ALIVE);
+    }
+
+    /**
+     * Builds the pool of connections to the unix domain socket. Only plain http URIs are supported,
+     * the Host header and the path of the requests still come from the URI.
+     */
+    private PoolingHttpClientConnectionManager buildUnixDomainSocketConnectionManager() {
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register(URIScheme.HTTP.id, new UnixDomainConnectionSocketFactory(unixDomainSocket))
+                .build();
+        TimeValue timeToLive = connectionTimeToLive != null ? TimeValue.of(connectionTimeToLive, TimeUnit.MILLISECONDS) : TimeValue.NEG_ONE_MILLISECOND;
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                socketFactoryRegistry, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, timeToLive,
+                null, UnixDomainConnectionSocketFactory.NO_LOOKUP_DNS_RESOLVER, null);
+        connectionManager.setDefaultSocketConfig(buildSocketConfig());
+        if (maxConnections != null) {
+            connectionManager.setMaxTotal(maxConnections);
+        }
+        if (maxConnectionsPerRoute != null) {
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        }
+        if (validateAfterInactivity != null) {
+            connectionManager.setValidateAfterInactivity(TimeValue.of(validateAfterInactivity, TimeUnit.MILLISECONDS));
+        }
+        maxConnectionsPerHost.forEach((host, max) -> connectionManager.setMaxPerRoute(toHttpRoute(host), max));
+        return connectionManager;
+    }
+
+    /**
+     * The resolver shared by the sync and async pools, {@code null} for the default resolver of the client.
+     * With a DNS cache TTL the given resolver (or the system one) is wrapped in a {@link CachingDnsResolver}.
+     */
+    synchronized DnsResolver dnsResolver() {
+        if (effectiveDnsResolver == null && dnsCacheTimeToLive != null) {
+            DnsResolver delegate = dnsResolver != null ? dnsResolver : SystemDefaultDnsResolver.INSTANCE;
+            effectiveDnsResolver = new CachingDnsResolver(delegate, dnsCacheTimeToLive);
+        } else if (effectiveDnsResolver == null) {
+            effectiveDnsResolver = dnsResolver;
+        }
+        return effectiveDnsResolver;
+    }
+
+    boolean hasTlsSettings() {
+        return sslContext != null || tlsProvider != null || tlsSessionCacheSize != null || tlsSessionTimeout != null
+               || tlsProtocols != null || tlsCipherSuites != null;
+    }
+
+    /**
+     * The TLS context shared by the sync and async pools, so a session negotiated by one of them can be resumed by the other.
+     * The session cache options are applied to the given context or to a new one created with the TLS provider.
+     */
+    synchronized SSLContext tlsContext() {
+        if (effectiveSslContext == null) {
+            SSLContext context = sslContext != null ? sslContext : createSslContext();
+            SSLSessionContext sessionContext = context.getClientSessionContext();
+            if (tlsSessionCacheSize != null) {
+                sessionContext.setSessionCacheSize(tlsSessionCacheSize);
+            }
+            if (tlsSessionTimeout != null) {
+                sessionContext.setSessionTimeout(tlsSessionTimeout);
+            }
+            effectiveSslContext = context;
+        }
+        return effectiveSslContext;
+    }
+
+    TlsStrategy buildTlsStrategy() {
+        ClientTlsStrategyBuilder tlsStrategy = ClientTlsStrategyBuilder.create()
+                                                                       .setSslContext(tlsContext())
+                                                                       .setHostnameVerifier(HttpsSupport.getDefaultHostnameVerifier());
+        if (tlsProtocols != null) {
+            tlsStrategy.setTlsVersions(tlsProtocols);
+        }
+        if (tlsCipherSuites != null) {
+            tlsStrategy.setCiphers(tlsCipherSuites);
+        }
+        return tlsStrategy.build();
+    }
+
+    private SSLContext createSslContext() {
+        try {
+            Provider provider = tlsProvider != null ? findTlsProvider(tlsProvider) : null;
+            SSLContext context = provider != null ? SSLContext.getInstance("TLS", provider) : SSLContext.getInstance("TLS");
+            context.init(null, null, null);
+            return context;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Failed to create the TLS context", ex);
+        }
+    }
+
+    /**
+     * Looks up a registered security provider. Conscrypt is also picked up from the classpath when it isn't registered.
+     * Returns null, so the default provider is used, when the provider isn't available.
+     */
+    private static Provider findTlsProvider(String name) {
+        Provider provider = Security.getProvider(name);
+        if (provider == null && CONSCRYPT_PROVIDER.equalsIgnoreCase(name)) {
+            try {
+                provider = (Provider) Class.forName("org.conscrypt.Conscrypt").getMethod("newProvider").invoke(null);
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                log.debug("Conscrypt is not available: {}", ex.toString());
+            }
+        }
+        if (provider == null) {
+            log.warn("TLS provider {} is not available, using the default provider", name);
+        }
+        return provider;
+    }
+
+    IOReactorConfig buildIOReactorConfig() {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom();
+        if (ioThreadCount != null) {
+            ioReactorConfig.setIoThreadCount(ioThreadCount);
+        }
+        if (tcpNoDelay != null) {
+            ioReactorConfig.setTcpNoDelay(tcpNoDelay);
+        }
+        if (soKeepAlive != null) {
+            ioReactorConfig.setSoKeepAlive(soKeepAlive);
+        }
+        if (socketSendBufferSize != null) {
+            ioReactorConfig.setSndBufSize(socketSendBufferSize);
+        }
+        if (socketReceiveBufferSize != null) {
+            ioReactorConfig.setRcvBufSize(socketReceiveBufferSize);
+        }
+        return ioReactorConfig.build();
+    }
+
+    PoolingAsyncClientConnectionManager buildAsyncConnectionManager() {
+        PoolingAsyncClientConnectionManagerBuilder builder = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDnsResolver(dnsResolver());
+
+        if (maxConnections != null) {
+            builder.setMaxConnTotal(maxConnections);
+        }
+        if (maxConnectionsPerRoute != null) {
+            builder.setMaxConnPerRoute(maxConnectionsPerRoute);
+        }
+        if (connectionTimeToLive != null) {
+            builder.setConnectionTimeToLive(TimeValue.of(connectionTimeToLive, TimeUnit.MILLISECONDS));
+        }
+        if (validateAfterInactivity != null) {
+            builder.setValidateAfterInactivity(TimeValue.of(validateAfterInactivity, TimeUnit.MILLISECONDS));
+        }
+        if (hasTlsSettings()) {
+            builder.setTlsStrategy(buildTlsStrategy());
+        }
+
+        PoolingAsyncClientConnectionManager connectionManager = builder.build();
+        maxConnectionsPerHost.forEach((host, max) -> connectionManager.setMaxPerRoute(toHttpRoute(host), max));
+        return connectionManager;
+    }
+
+    CloseableHttpAsyncClient buildAsyncHttpClient() {
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                                                         .setConnectionManager(buildAsyncConnectionManager())
+                                                         .setIOReactorConfig(buildIOReactorConfig())
+                                                         .setKeepAliveStrategy(keepAliveStrategy())
+                                                         .setRetryStrategy(ClientRetryStrategy.INSTANCE)
+                                                         .addExecInterceptorLast(ExchangeCancellation.NAME, ExchangeCancellation.INTERCEPTOR);
+        if (maxIdleTime != null) {
+            builder.evictExpiredConnections().evictIdleConnections(TimeValue.of(maxIdleTime, TimeUnit.MILLISECONDS));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the HTTP/2 client which keeps a single multiplexed connection per host.
+     * Plain http URIs use h2c with prior knowledge and https URIs negotiate h2 using ALPN.
+     * The client does not retry on its own: httpclient discards the connection before retrying an exchange,
+     * which for HTTP/2 aborts every other stream multiplexed on it. A {@link RetryPolicy} still applies.
+     */
+    CloseableHttpAsyncClient buildHttp2AsyncClient() {
+        H2Config.Builder h2Config = H2Config.custom().setPushEnabled(false);
+        if (http2MaxConcurrentStreams != null) {
+            h2Config.setMaxConcurrentStreams(http2MaxConcurrentStreams);
+        }
+        H2AsyncClientBuilder builder = HttpAsyncClients.customHttp2()
+                                                       .setH2Config(h2Config.build())
+                                                       .setDnsResolver(dnsResolver())
+                                                       .setTlsStrategy(hasTlsSettings() ? buildTlsStrategy() : null)
+                                                       .setIOReactorConfig(buildIOReactorConfig())
+                                                       .disableAutomaticRetries()
+                                                       .addExecInterceptorLast(ExchangeCancellation.NAME, ExchangeCancellation.INTERCEPTOR);
+        if (maxIdleTime != null) {
+            builder.evictIdleConnections(TimeValue.of(maxIdleTime, TimeUnit.MILLISECONDS));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the requester used to pipeline GET requests over a single HTTP/1.1 connection per host.
+     * The response timeout applies to the pipelined connection as its socket timeout.
+     */
+    PipeliningRequester buildPipeliningRequester(Timeout responseTimeout) {
+        return new PipeliningRequester(IOReactorConfig.copy(buildIOReactorConfig()).setSoTimeout(responseTimeout).build(),
+                                       hasTlsSettings() ? buildTlsStrategy() : null);
+    }
+
+    /**
+     * Builds the host the same way the default route planner does, with the port resolved from the scheme when missing,
+     * so per-host limits match the routes the pool actually leases connections for.
+     */
+    static HttpHost toHttpHost(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme() : URIScheme.HTTP.id;
+        int port = uri.getPort();
+        if (port < 0) {
+            port = URIScheme.HTTPS.same(scheme) ? 443 : 80;
+        }
+        return new HttpHost(scheme, uri.getHost(), port);
+    }
+
+    static HttpRoute toHttpRoute(HttpHost host) {
+        return new HttpRoute(host, null, URIScheme.HTTPS.same(host.getSchemeName()));
+    }
+}
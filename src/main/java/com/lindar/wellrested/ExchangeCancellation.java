@@ -0,0 +1,76 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cancels the exchange of an async request directly. When the pool hands out a connection straight away, the async client
+ * replaces the cancellable of the exchange with the one of the completed lease, so cancelling the future it returned
+ * doesn't abort the exchange and the connection stays leased until the response arrives.
+ * <p>
+ * The {@link #INTERCEPTOR} runs right before the exchange and records its cancellable in the context of the request.
+ * </p>
+ */
+class ExchangeCancellation {
+    static final String NAME = "well-rested-exchange-cancellation";
+
+    private static final String      ATTRIBUTE = ExchangeCancellation.class.getName();
+    private static final Cancellable CANCELLED = () -> false;
+
+    static final AsyncExecChainHandler INTERCEPTOR = (request, entityProducer, scope, chain, asyncExecCallback) -> {
+        Object cancellation = scope.clientContext.getAttribute(ATTRIBUTE);
+        if (!(cancellation instanceof ExchangeCancellation)) {
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+            return;
+        }
+        CancellableDependency dependency = ((ExchangeCancellation) cancellation).track(scope.cancellableDependency);
+        chain.proceed(request, entityProducer, new AsyncExecChain.Scope(scope.exchangeId, scope.route, scope.originalRequest, dependency,
+                                                                        scope.clientContext, scope.execRuntime, scope.scheduler, scope.execCount),
+                      asyncExecCallback);
+    };
+
+    private final AtomicReference<Cancellable> exchange = new AtomicReference<>();
+
+    static ExchangeCancellation attach(HttpContext context) {
+        ExchangeCancellation cancellation = new ExchangeCancellation();
+        context.setAttribute(ATTRIBUTE, cancellation);
+        return cancellation;
+    }
+
+    /**
+     * Aborts the exchange, now if it started or as soon as it starts otherwise
+     */
+    void cancel() {
+        Cancellable previous = exchange.getAndSet(CANCELLED);
+        if (previous != null && previous != CANCELLED) {
+            previous.cancel();
+        }
+    }
+
+    private CancellableDependency track(CancellableDependency delegate) {
+        return new CancellableDependency() {
+            @Override
+            public void setDependency(Cancellable dependency) {
+                delegate.setDependency(dependency);
+                if (exchange.getAndUpdate(current -> current == CANCELLED ? CANCELLED : dependency) == CANCELLED) {
+                    dependency.cancel();
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return delegate.isCancelled();
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+}
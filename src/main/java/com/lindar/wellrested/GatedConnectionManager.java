@@ -0,0 +1,242 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wraps the pooling connection manager of a classic client so a lease only reaches the pool once the pool can serve it
+ * straight away. The lease request of the pool waits for a connection inside a synchronized method, which pins a virtual
+ * thread to its carrier while the pool is exhausted. Here the wait is on a lock condition instead, which parks it.
+ * <br/>
+ * The limits are read from the pool on every lease, so they follow changes to its max total and max per route.
+ */
+class GatedConnectionManager implements HttpClientConnectionManager, ConnPoolControl<HttpRoute> {
+    private final PoolingHttpClientConnectionManager delegate;
+    private final Lock                               lock           = new ReentrantLock();
+    private final Condition                          released       = lock.newCondition();
+    private final Map<HttpRoute, Integer>            leasedPerRoute = new HashMap<>();
+    private final Map<ConnectionEndpoint, HttpRoute> endpoints      = new ConcurrentHashMap<>();
+
+    private int leased;
+
+    GatedConnectionManager(PoolingHttpClientConnectionManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        return new GatedLeaseRequest(id, route, requestTimeout, state);
+    }
+
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+        try {
+            delegate.release(endpoint, newState, validDuration);
+        } finally {
+            HttpRoute route = endpoints.remove(endpoint);
+            if (route != null) {
+                releasePermit(route);
+            }
+        }
+    }
+
+    @Override
+    public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+        delegate.connect(endpoint, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+        delegate.upgrade(endpoint, context);
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        delegate.close(closeMode);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Waits until the pool has room for a connection of the route
+     *
+     * @throws TimeoutException      if it waits longer than the timeout
+     * @throws CancellationException if the lease is cancelled while waiting
+     */
+    private void acquirePermit(HttpRoute route, Timeout timeout, GatedLeaseRequest request) throws InterruptedException, TimeoutException {
+        boolean limited = TimeValue.isPositive(timeout);
+        long nanos = limited ? timeout.toNanoseconds() : 0;
+        lock.lock();
+        try {
+            while (leased >= delegate.getMaxTotal() || leasedPerRoute.getOrDefault(route, 0) >= delegate.getMaxPerRoute(route)) {
+                if (request.cancelled) {
+                    throw new CancellationException("Lease of a connection to " + route + " cancelled");
+                }
+                if (!limited) {
+                    released.await();
+                } else if (nanos <= 0) {
+                    throw new TimeoutException("Timeout waiting for a connection to " + route);
+                } else {
+                    nanos = released.awaitNanos(nanos);
+                }
+            }
+            leased++;
+            leasedPerRoute.merge(route, 1, Integer::sum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releasePermit(HttpRoute route) {
+        lock.lock();
+        try {
+            leased--;
+            leasedPerRoute.computeIfPresent(route, (key, count) -> count > 1 ? count - 1 : null);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeUp() {
+        lock.lock();
+        try {
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private class GatedLeaseRequest implements LeaseRequest {
+        private final String    id;
+        private final HttpRoute route;
+        private final Timeout   requestTimeout;
+        private final Object    state;
+
+        private volatile boolean            cancelled;
+        private volatile LeaseRequest       poolRequest;
+        private volatile ConnectionEndpoint endpoint;
+
+        private GatedLeaseRequest(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            this.id = id;
+            this.route = route;
+            this.requestTimeout = requestTimeout;
+            this.state = state;
+        }
+
+        @Override
+        public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+            if (endpoint != null) {
+                return endpoint;
+            }
+            acquirePermit(route, timeout, this);
+            try {
+                poolRequest = delegate.lease(id, route, requestTimeout, state);
+                if (cancelled) {
+                    poolRequest.cancel();
+                }
+                // the pool has room, so it doesn't wait inside its synchronized get
+                ConnectionEndpoint leasedEndpoint = poolRequest.get(timeout);
+                endpoints.put(leasedEndpoint, route);
+                endpoint = leasedEndpoint;
+                return leasedEndpoint;
+            } catch (InterruptedException | ExecutionException | TimeoutException | RuntimeException ex) {
+                releasePermit(route);
+                throw ex;
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            LeaseRequest current = poolRequest;
+            if (current != null) {
+                return current.cancel();
+            }
+            wakeUp();
+            return true;
+        }
+    }
+
+    @Override
+    public void setMaxTotal(int max) {
+        delegate.setMaxTotal(max);
+        wakeUp();
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return delegate.getMaxTotal();
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(int max) {
+        delegate.setDefaultMaxPerRoute(max);
+        wakeUp();
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return delegate.getDefaultMaxPerRoute();
+    }
+
+    @Override
+    public void setMaxPerRoute(HttpRoute route, int max) {
+        delegate.setMaxPerRoute(route, max);
+        wakeUp();
+    }
+
+    @Override
+    public int getMaxPerRoute(HttpRoute route) {
+        return delegate.getMaxPerRoute(route);
+    }
+
+    @Override
+    public void closeIdle(TimeValue idleTime) {
+        delegate.closeIdle(idleTime);
+    }
+
+    @Override
+    public void closeExpired() {
+        delegate.closeExpired();
+    }
+
+    @Override
+    public Set<HttpRoute> getRoutes() {
+        return delegate.getRoutes();
+    }
+
+    @Override
+    public PoolStats getTotalStats() {
+        return delegate.getTotalStats();
+    }
+
+    @Override
+    public PoolStats getStats(HttpRoute route) {
+        return delegate.getStats(route);
+    }
+}
@@ -0,0 +1,46 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HeaderElements;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps pooled connections alive for the {@code timeout} the server sends in its {@code Keep-Alive} header, capped to the given maximum.
+ * The connection is given up a little before the server closes it, so a request doesn't race the server closing an idle connection
+ * and fail with a {@code NoHttpResponseException}. Without a hint the maximum is used.
+ */
+class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+    static final long DEFAULT_MAX_KEEP_ALIVE = TimeUnit.MINUTES.toMillis(3);
+    static final long SAFETY_MARGIN          = 500;
+
+    private final long maxKeepAlive;
+
+    KeepAliveStrategy(long maxKeepAlive) {
+        this.maxKeepAlive = maxKeepAlive;
+    }
+
+    @Override
+    public TimeValue getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        Iterator<HeaderElement> elements = MessageSupport.iterate(response, HeaderElements.KEEP_ALIVE);
+        while (elements.hasNext()) {
+            HeaderElement element = elements.next();
+            if (element.getValue() != null && "timeout".equalsIgnoreCase(element.getName())) {
+                try {
+                    // a zero keep-alive would mean forever to the pools
+                    long hint = Math.max(TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue().trim())) - SAFETY_MARGIN, 1);
+                    return TimeValue.ofMilliseconds(Math.min(hint, maxKeepAlive));
+                } catch (NumberFormatException ignored) {
+                    // falls back to the maximum
+                }
+            }
+        }
+        return TimeValue.ofMilliseconds(maxKeepAlive);
+    }
+}
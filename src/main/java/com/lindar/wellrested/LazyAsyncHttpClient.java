@@ -0,0 +1,65 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorStatus;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Creates and starts the async client on first use, so the IOReactor threads are only spawned
+ * for WellRestedRequests that actually submit async requests.
+ * <br/>
+ * Uses a lock rather than {@code synchronized} so virtual threads waiting for the client to start don't pin their carrier thread.
+ */
+class LazyAsyncHttpClient {
+    private final Supplier<CloseableHttpAsyncClient> clientFactory;
+    private final Lock                               lock = new ReentrantLock();
+
+    private volatile CloseableHttpAsyncClient client;
+    private volatile boolean                  closed;
+
+    LazyAsyncHttpClient(Supplier<CloseableHttpAsyncClient> clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    CloseableHttpAsyncClient get() {
+        CloseableHttpAsyncClient current = this.client;
+        if (current == null) {
+            lock.lock();
+            try {
+                current = this.client;
+                if (current == null) {
+                    if (closed) {
+                        throw new IllegalStateException("The async client is closed");
+                    }
+                    current = clientFactory.get();
+                    if (current.getStatus() == IOReactorStatus.INACTIVE) {
+                        current.start();
+                    }
+                    this.client = current;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Closes the client if it was started, a client that was never used isn't created anymore
+     */
+    void close(CloseMode closeMode) {
+        lock.lock();
+        try {
+            closed = true;
+            if (client != null) {
+                client.close(closeMode);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.lindar.wellrested;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands out the connections of a route to the requests by {@link TrafficClass}, see {@link WellRestedRequestBuilder#prioritizeLeases()}.
+ * <p>
+ * It holds as many permits as the pool has connections for the route, so a request holding a permit gets a connection without
+ * waiting and the order of the queue of the pool never matters. The requests waiting for a permit are served by priority,
+ * first come first served within a class. The connections reserved for a class are only given to the other classes while
+ * no request of the class is waiting, and a class under its reservation always gets the next free connection, so the
+ * connections it lent come back as the other classes release them.
+ * </p>
+ */
+class LeaseScheduler {
+    private static final TrafficClass[] CLASSES = TrafficClass.values();
+
+    private final int                                       capacity;
+    private final int[]                                     reserved = new int[CLASSES.length];
+    private final int[]                                     inUse    = new int[CLASSES.length];
+    private final List<Queue<CompletableFuture<Void>>>      waiting  = new ArrayList<>();
+    private int                                             total;
+
+    LeaseScheduler(int capacity, Map<TrafficClass, Integer> reservedConnections) {
+        this.capacity = capacity;
+        int reservedTotal = 0;
+        for (Map.Entry<TrafficClass, Integer> reservation : reservedConnections.entrySet()) {
+            reserved[reservation.getKey().ordinal()] = reservation.getValue();
+            reservedTotal += reservation.getValue();
+        }
+        if (reservedTotal > capacity) {
+            throw new IllegalArgumentException("The reserved connections (" + reservedTotal + ") exceed the connections of the route (" + capacity + ")");
+        }
+        for (int i = 0; i < CLASSES.length; i++) {
+            waiting.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Returns a future completed when the request gets a connection. Cancelling it gives up the place in the queue,
+     * once completed the permit must be released.
+     */
+    CompletableFuture<Void> acquire(TrafficClass trafficClass) {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            waiting.get(trafficClass.ordinal()).add(permit);
+        }
+        grantPermits();
+        return permit;
+    }
+
+    void release(TrafficClass trafficClass) {
+        synchronized (this) {
+            inUse[trafficClass.ordinal()]--;
+            total--;
+        }
+        grantPermits();
+    }
+
+    /**
+     * The permits are counted under the lock and the futures completed outside of it, since completing them starts the requests
+     */
+    private void grantPermits() {
+        Map<TrafficClass, List<CompletableFuture<Void>>> granted = new EnumMap<>(TrafficClass.class);
+        synchronized (this) {
+            for (TrafficClass trafficClass : CLASSES) {
+                Queue<CompletableFuture<Void>> queue = waiting.get(trafficClass.ordinal());
+                while (!queue.isEmpty() && canTake(trafficClass.ordinal())) {
+                    CompletableFuture<Void> permit = queue.poll();
+                    if (!permit.isDone()) {
+                        inUse[trafficClass.ordinal()]++;
+                        total++;
+                        granted.computeIfAbsent(trafficClass, ignored -> new ArrayList<>()).add(permit);
+                    }
+                }
+            }
+        }
+        granted.forEach((trafficClass, permits) -> {
+            for (CompletableFuture<Void> permit : permits) {
+                if (!permit.complete(null)) {
+                    // cancelled meanwhile
+                    release(trafficClass);
+                }
+            }
+        });
+    }
+
+    private boolean canTake(int trafficClass) {
+        int free = capacity - total;
+        if (free <= 0) {
+            return false;
+        }
+        if (inUse[trafficClass] < reserved[trafficClass]) {
+            return true;
+        }
+        // only the classes with waiting requests hold back the rest of their reservation
+        int reservedForOthers = 0;
+        for (int i = 0; i < CLASSES.length; i++) {
+            if (i != trafficClass && !waiting.get(i).isEmpty()) {
+                reservedForOthers += Math.max(reserved[i] - inUse[i], 0);
+            }
+        }
+        return free > reservedForOthers;
+    }
+}
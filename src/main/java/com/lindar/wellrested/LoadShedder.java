@@ -0,0 +1,38 @@
+package com.lindar.wellrested;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the requests sent to a route at the same time to its connections plus the requests allowed to wait for one,
+ * see {@link WellRestedRequestBuilder#maxPendingRequestsPerRoute(int)}.
+ * <p>
+ * The requests are counted from the moment they're sent until their response is built, so the ones over the limit are
+ * rejected before they reach the pool and never join the queue of its leases.
+ * </p>
+ */
+class LoadShedder {
+    private final int           limit;
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    LoadShedder(int maxConnections, int maxPendingRequests) {
+        this.limit = maxConnections + maxPendingRequests;
+    }
+
+    /**
+     * Admits the request unless the connections are all in use and the queue is full. An admitted request must be released.
+     */
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = admitted.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!admitted.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        admitted.decrementAndGet();
+    }
+}
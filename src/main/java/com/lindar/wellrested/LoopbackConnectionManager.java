@@ -0,0 +1,96 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.impl.io.HttpRequestExecutor;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+
+/**
+ * Hands out a single always connected endpoint which passes the requests to a {@link LoopbackHandler}.
+ * The rest of the classic client (interceptors, authentication, cookies, redirects, response handling) runs as usual,
+ * only the sockets are left out.
+ */
+class LoopbackConnectionManager implements HttpClientConnectionManager {
+    private final LoopbackEndpoint endpoint;
+    private final LeaseRequest     leaseRequest;
+
+    LoopbackConnectionManager(LoopbackHandler handler) {
+        this.endpoint = new LoopbackEndpoint(handler);
+        this.leaseRequest = new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) {
+                return endpoint;
+            }
+
+            @Override
+            public boolean cancel() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        return leaseRequest;
+    }
+
+    @Override
+    public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+    }
+
+    @Override
+    public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) {
+    }
+
+    @Override
+    public void upgrade(ConnectionEndpoint endpoint, HttpContext context) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+    }
+
+    private static class LoopbackEndpoint extends ConnectionEndpoint {
+        private final LoopbackHandler handler;
+
+        private LoopbackEndpoint(LoopbackHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public ClassicHttpResponse execute(String id, ClassicHttpRequest request, HttpRequestExecutor requestExecutor, HttpContext context) throws IOException, HttpException {
+            return handler.handle(request);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void setSocketTimeout(Timeout timeout) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+
+import java.io.IOException;
+
+/**
+ * Answers the requests of a WellRestedRequest in the same JVM, without opening sockets. See {@link WellRestedRequestBuilder#loopback(LoopbackHandler)}
+ */
+@FunctionalInterface
+public interface LoopbackHandler {
+    /**
+     * Called with the request as it would be written to the connection, after the headers, credentials and cookies were added
+     */
+    ClassicHttpResponse handle(ClassicHttpRequest request) throws IOException, HttpException;
+}
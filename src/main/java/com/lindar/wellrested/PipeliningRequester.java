@@ -0,0 +1,175 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncRequesterBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncRequester;
+import org.apache.hc.core5.http.nio.AsyncClientEndpoint;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends HTTP/1.1 requests over a single connection per host without waiting for the previous response (pipelining).
+ * The server answers pipelined requests in order, so each response completes the future of its own request.
+ * <br/>
+ * The requester and its I/O threads are created on first use. When the connection of a host is closed
+ * (eg: by the server after its keep-alive limit) or a request on it fails, the next request opens a new one.
+ */
+class PipeliningRequester {
+    private final IOReactorConfig ioReactorConfig;
+    private final TlsStrategy     tlsStrategy;
+    private final Lock            lock = new ReentrantLock();
+
+    private final ConcurrentMap<HttpHost, PipelinedConnection> connections = new ConcurrentHashMap<>();
+
+    private volatile HttpAsyncRequester requester;
+    private volatile boolean            closed;
+
+    /**
+     * @param tlsStrategy the TLS strategy of https connections, null for the default one of the requester
+     */
+    PipeliningRequester(IOReactorConfig ioReactorConfig, TlsStrategy tlsStrategy) {
+        this.ioReactorConfig = ioReactorConfig;
+        this.tlsStrategy = tlsStrategy;
+    }
+
+    CompletableFuture<SimpleHttpResponse> execute(HttpHost host, SimpleHttpRequest request, Timeout connectTimeout) {
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        PipelinedConnection connection = connection(host, connectTimeout);
+        connection.endpoint.whenComplete((endpoint, connectException) -> {
+            if (connectException != null) {
+                connections.remove(host, connection);
+                future.completeExceptionally(connectException);
+                return;
+            }
+            Future<SimpleHttpResponse> exchange = endpoint.execute(SimpleRequestProducer.create(request), SimpleResponseConsumer.create(), new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    connection.established = true;
+                    future.complete(response);
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    discard(host, connection);
+                    future.completeExceptionally(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+            future.whenComplete((response, ex) -> {
+                if (future.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Returns the connection of the host, replacing it when the server closed it.
+     * A new endpoint can report it's not connected until its protocol handler is set up, so only established connections are checked.
+     */
+    private PipelinedConnection connection(HttpHost host, Timeout connectTimeout) {
+        PipelinedConnection connection = connections.computeIfAbsent(host, key -> new PipelinedConnection(connect(key, connectTimeout)));
+        if (connection.established && !connection.endpoint.join().isConnected()) {
+            discard(host, connection);
+            return connections.computeIfAbsent(host, key -> new PipelinedConnection(connect(key, connectTimeout)));
+        }
+        return connection;
+    }
+
+    private void discard(HttpHost host, PipelinedConnection connection) {
+        if (connections.remove(host, connection)) {
+            connection.endpoint.thenAccept(AsyncClientEndpoint::releaseAndDiscard);
+        }
+    }
+
+    private CompletableFuture<AsyncClientEndpoint> connect(HttpHost host, Timeout connectTimeout) {
+        CompletableFuture<AsyncClientEndpoint> endpoint = new CompletableFuture<>();
+        requester().connect(host, connectTimeout, null, new FutureCallback<AsyncClientEndpoint>() {
+            @Override
+            public void completed(AsyncClientEndpoint result) {
+                endpoint.complete(result);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                endpoint.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                endpoint.cancel(false);
+            }
+        });
+        return endpoint;
+    }
+
+    /**
+     * Closes the connections and the I/O threads if the requester was started
+     */
+    void close(CloseMode closeMode) {
+        lock.lock();
+        try {
+            closed = true;
+            if (requester != null) {
+                requester.close(closeMode);
+            }
+            connections.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private HttpAsyncRequester requester() {
+        HttpAsyncRequester current = this.requester;
+        if (current == null) {
+            lock.lock();
+            try {
+                current = this.requester;
+                if (current == null) {
+                    if (closed) {
+                        throw new IllegalStateException("The pipelining requester is closed");
+                    }
+                    AsyncRequesterBootstrap bootstrap = AsyncRequesterBootstrap.bootstrap().setIOReactorConfig(ioReactorConfig);
+                    if (tlsStrategy != null) {
+                        bootstrap.setTlsStrategy(tlsStrategy);
+                    }
+                    current = bootstrap.create();
+                    current.start();
+                    this.requester = current;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static class PipelinedConnection {
+        private final CompletableFuture<AsyncClientEndpoint> endpoint;
+
+        private volatile boolean established;
+
+        private PipelinedConnection(CompletableFuture<AsyncClientEndpoint> endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+}
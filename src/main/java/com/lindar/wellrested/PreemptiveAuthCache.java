@@ -0,0 +1,106 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.auth.AuthChallenge;
+import org.apache.hc.client5.http.auth.AuthScheme;
+import org.apache.hc.client5.http.auth.CredentialsProvider;
+import org.apache.hc.client5.http.auth.StandardAuthScheme;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.impl.auth.BasicAuthCache;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Base64;
+
+/**
+ * Sends the Basic credentials of a WellRestedRequest preemptively to its target. The {@code Authorization} value is encoded once
+ * and the cache is shared by all the requests, with any client: {@link BasicAuthCache} would serialize and deserialize the scheme
+ * and encode the credentials again on every request.
+ * <p>
+ * The scheme holds no state, so the cache ignores the updates of the clients: a failed authentication doesn't remove
+ * the credentials for the next requests.
+ * </p>
+ */
+class PreemptiveAuthCache implements AuthCache {
+    private final HttpHost   target;
+    private final AuthScheme scheme;
+
+    PreemptiveAuthCache(HttpHost target, UsernamePasswordCredentials credentials) {
+        this.target = target;
+        this.scheme = new EncodedBasicScheme(credentials);
+    }
+
+    @Override
+    public AuthScheme get(HttpHost host) {
+        return target.equals(host) ? scheme : null;
+    }
+
+    @Override
+    public void put(HttpHost host, AuthScheme authScheme) {
+    }
+
+    @Override
+    public void remove(HttpHost host) {
+    }
+
+    @Override
+    public void clear() {
+    }
+
+    /**
+     * Answers a Basic challenge with the credentials already sent, so the client gives up instead of sending them again
+     */
+    private static class EncodedBasicScheme implements AuthScheme {
+        private final Principal principal;
+        private final String    authResponse;
+
+        EncodedBasicScheme(UsernamePasswordCredentials credentials) {
+            this.principal = credentials.getUserPrincipal();
+            // the same charset as the BasicScheme of the clients
+            byte[] userPass = (principal.getName() + ":" + new String(credentials.getPassword())).getBytes(StandardCharsets.US_ASCII);
+            this.authResponse = StandardAuthScheme.BASIC + " " + Base64.getEncoder().encodeToString(userPass);
+        }
+
+        @Override
+        public String getName() {
+            return StandardAuthScheme.BASIC;
+        }
+
+        @Override
+        public boolean isConnectionBased() {
+            return false;
+        }
+
+        @Override
+        public void processChallenge(AuthChallenge authChallenge, HttpContext context) {
+        }
+
+        @Override
+        public boolean isChallengeComplete() {
+            return true;
+        }
+
+        @Override
+        public String getRealm() {
+            return null;
+        }
+
+        @Override
+        public boolean isResponseReady(HttpHost host, CredentialsProvider credentialsProvider, HttpContext context) {
+            return true;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return principal;
+        }
+
+        @Override
+        public String generateAuthResponse(HttpHost host, HttpRequest request, HttpContext context) {
+            return authResponse;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request frozen by {@link WellRestedRequest#prepare(Method, HttpEntity, List)}: method, headers and body are computed once
+ * and shared by every submit, so it can be sent again and again from many threads.
+ * <br/>
+ * The headers are immutable and the body is kept as a byte array, wrapped in a repeatable entity for the classic client.
+ * The timeouts and deadline set on the resource before preparing it apply to every submit.
+ */
+@Getter(AccessLevel.PACKAGE)
+public class PreparedRequest implements RequestResource {
+    @Getter(AccessLevel.NONE)
+    private final WellRestedRequest owner;
+    private final Method            method;
+    private final Header[]          headers;
+    private final byte[]            body;
+    private final ContentType       contentType;
+    private final HttpEntity        entity;
+    private final RequestOptions    options;
+    private final List<Object>      singleFlightKey;
+
+    PreparedRequest(WellRestedRequest owner, Method method, Header[] headers, byte[] body, ContentType contentType, RequestOptions options,
+                    List<Object> singleFlightKey) {
+        this.owner = owner;
+        this.method = method;
+        this.headers = headers;
+        this.body = body;
+        this.contentType = contentType;
+        this.entity = body != null ? new ByteArrayEntity(body, contentType) : null;
+        this.options = options;
+        this.singleFlightKey = singleFlightKey;
+    }
+
+    @Override
+    public WellRestedResponse submit() {
+        return owner.execute(this);
+    }
+
+    @Override
+    public CompletableFuture<WellRestedResponse> submitAsync() {
+        return owner.executeAsync(this);
+    }
+}
@@ -0,0 +1,50 @@
+package com.lindar.wellrested;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * The settings of a single request that override the ones of its WellRestedRequest, see {@link RequestOptionsSupport}.
+ * It's immutable so prepared requests and the threads sending them can share it; null means not overridden.
+ * Requests with equal options can share a response, see {@link SingleFlight}.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+final class RequestOptions {
+    static final RequestOptions DEFAULT = new RequestOptions(null, null, null, null, TrafficClass.DEFAULT);
+
+    private final Timeout      connectionTimeout;
+    private final Timeout      responseTimeout;
+    private final Timeout      connectionRequestTimeout;
+    private final Integer      deadline;
+    private final TrafficClass trafficClass;
+
+    RequestOptions withConnectionTimeout(int connectionTimeout) {
+        return new RequestOptions(Timeout.ofMilliseconds(connectionTimeout), responseTimeout, connectionRequestTimeout, deadline, trafficClass);
+    }
+
+    RequestOptions withResponseTimeout(int responseTimeout) {
+        return new RequestOptions(connectionTimeout, Timeout.ofMilliseconds(responseTimeout), connectionRequestTimeout, deadline, trafficClass);
+    }
+
+    RequestOptions withConnectionRequestTimeout(int connectionRequestTimeout) {
+        return new RequestOptions(connectionTimeout, responseTimeout, Timeout.ofMilliseconds(connectionRequestTimeout), deadline, trafficClass);
+    }
+
+    RequestOptions withDeadline(int deadline) {
+        return new RequestOptions(connectionTimeout, responseTimeout, connectionRequestTimeout, deadline, trafficClass);
+    }
+
+    RequestOptions withTrafficClass(TrafficClass trafficClass) {
+        return new RequestOptions(connectionTimeout, responseTimeout, connectionRequestTimeout, deadline,
+                                  trafficClass != null ? trafficClass : TrafficClass.DEFAULT);
+    }
+
+    boolean hasTimeouts() {
+        return connectionTimeout != null || responseTimeout != null || connectionRequestTimeout != null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.lindar.wellrested;
+
+/**
+ * The timeouts and traffic class of a single request, overriding the ones set on the {@link WellRestedRequestBuilder}:
+ * <pre>
+ * request.get().responseTimeout(200).deadline(500).submit();
+ * </pre>
+ */
+abstract class RequestOptionsSupport<T extends RequestOptionsSupport<T>> {
+    private RequestOptions options = RequestOptions.DEFAULT;
+
+    /**
+     * Sets both the connection and response timeout of this request, in milliseconds. See {@link WellRestedRequestBuilder#timeout(Integer)}
+     */
+    public T timeout(int timeout) {
+        this.options = options.withConnectionTimeout(timeout).withResponseTimeout(timeout);
+        return self();
+    }
+
+    /**
+     * See {@link WellRestedRequestBuilder#connectionTimeout(Integer)}
+     */
+    public T connectionTimeout(int connectionTimeout) {
+        this.options = options.withConnectionTimeout(connectionTimeout);
+        return self();
+    }
+
+    /**
+     * See {@link WellRestedRequestBuilder#responseTimeout(Integer)}
+     */
+    public T responseTimeout(int responseTimeout) {
+        this.options = options.withResponseTimeout(responseTimeout);
+        return self();
+    }
+
+    /**
+     * See {@link WellRestedRequestBuilder#connectionRequestTimeout(Integer)}
+     */
+    public T connectionRequestTimeout(int connectionRequestTimeout) {
+        this.options = options.withConnectionRequestTimeout(connectionRequestTimeout);
+        return self();
+    }
+
+    /**
+     * See {@link WellRestedRequestBuilder#deadline(Integer)}
+     */
+    public T deadline(int deadline) {
+        this.options = options.withDeadline(deadline);
+        return self();
+    }
+
+    /**
+     * Tags the request with a traffic class, see {@link WellRestedRequestBuilder#prioritizeLeases()}. Default: {@link TrafficClass#DEFAULT}
+     */
+    public T trafficClass(TrafficClass trafficClass) {
+        this.options = options.withTrafficClass(trafficClass);
+        return self();
+    }
+
+    RequestOptions options() {
+        return options;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T self() {
+        return (T) this;
+    }
+}
@@ -2,6 +2,23 @@ package com.lindar.wellrested;
 
 import com.lindar.wellrested.vo.WellRestedResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RequestResource {
+    /**
+     * Submits the request and waits for the response. <br/>
+     * If the calling thread is interrupted the exchange is aborted and a response flagged as {@link WellRestedResponse#isCancelled() cancelled}
+     * is returned, keeping the interrupt status. The classic client can't abort a blocking read on a platform thread,
+     * so there the interrupt is only checked before the request is sent.
+     */
     WellRestedResponse submit();
+
+    /**
+     * Submits the request without blocking the calling thread. <br/>
+     * Timeouts and errors are not thrown, they complete the future with the same {@link WellRestedResponse} flags {@link #submit()} uses.
+     * Cancelling the future aborts the exchange and discards its connection.
+     */
+    default CompletableFuture<WellRestedResponse> submitAsync() {
+        return CompletableFuture.supplyAsync(this::submit);
+    }
 }
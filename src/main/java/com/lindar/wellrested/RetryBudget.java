@@ -0,0 +1,49 @@
+package com.lindar.wellrested;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The retries a WellRestedRequest can still send, see {@link RetryPolicy}. The balance is kept in thousandths of a retry
+ * so a request can deposit a fraction of one without a lock.
+ */
+class RetryBudget {
+    private static final long SCALE = 1000;
+
+    private final long       deposit;
+    private final long       maxBalance;
+    private final AtomicLong balance;
+
+    RetryBudget(double ratio, int minRetries) {
+        this.deposit = Math.round(ratio * SCALE);
+        // the deposits need room to add up to a retry
+        this.maxBalance = Math.max(minRetries, 1) * SCALE;
+        this.balance = new AtomicLong(minRetries * SCALE);
+    }
+
+    /**
+     * Called once per request, whatever its number of attempts
+     */
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(current + deposit, maxBalance)));
+    }
+
+    /**
+     * Takes a retry from the budget, false if there's none left
+     */
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
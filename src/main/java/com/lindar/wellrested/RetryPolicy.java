@@ -0,0 +1,183 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed requests are sent again and when, see {@link WellRestedRequestBuilder#retryPolicy(RetryPolicy)}:
+ * <pre>
+ * RetryPolicy retryPolicy = RetryPolicy.builder()
+ *                                      .maxAttempts(3)
+ *                                      .retryOnStatus(502, 503, 504)
+ *                                      .backoff(100, 2000)
+ *                                      .retryBudget(0.1)
+ *                                      .build();
+ * </pre>
+ * <ul>
+ * <li>Requests that never reached the server, flagged {@code isConnectionTimeout} or {@code isConnectionRequestTimeout}, are retried whatever their method.</li>
+ * <li>Socket timeouts, errors and the given status codes are only retried for idempotent methods (GET, HEAD, OPTIONS, TRACE, PUT, DELETE)
+ * and for requests with an {@code Idempotency-Key} header, unless {@link Builder#retryNonIdempotent()} is set.</li>
+ * <li>Cancelled requests and the ones rejected by {@link WellRestedRequestBuilder#maxPendingRequestsPerRoute(int)} aren't retried.</li>
+ * </ul>
+ * The retries wait an exponential backoff with full jitter: a random delay up to {@code initialBackoff * 2^(retry - 1)}, capped to {@code maxBackoff}.
+ * <br/>
+ * The retry budget caps the retries of the WellRestedRequest to a share of its requests, so retries can't multiply the load on a backend
+ * that is already failing. Each request adds {@code ratio} to the budget and each retry takes one, up to {@code minRetries} can be saved
+ * for the bursts of a quiet client.
+ */
+@Getter
+public final class RetryPolicy {
+    private final int          maxAttempts;
+    private final Set<Integer> retryStatuses;
+    private final boolean      retryOnTimeouts;
+    private final boolean      retryNonIdempotent;
+    private final long         initialBackoff;
+    private final long         maxBackoff;
+    private final double       budgetRatio;
+    private final int          budgetMinRetries;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.retryStatuses = Collections.unmodifiableSet(new HashSet<>(builder.retryStatuses));
+        this.retryOnTimeouts = builder.retryOnTimeouts;
+        this.retryNonIdempotent = builder.retryNonIdempotent;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.budgetRatio = builder.budgetRatio;
+        this.budgetMinRetries = builder.budgetMinRetries;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 3 attempts on 502, 503, 504 and timeouts, with a backoff from 100ms to 2s and a budget of 10% of the requests
+     */
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    boolean isRetryable(WellRestedResponse response, boolean idempotent) {
+        if (response.isCancelled() || response.isConnectionRequestRejected()) {
+            return false;
+        }
+        if (response.isConnectionTimeout() || response.isConnectionRequestTimeout()) {
+            // the request wasn't sent
+            return retryOnTimeouts;
+        }
+        if (!idempotent && !retryNonIdempotent) {
+            return false;
+        }
+        return response.isSocketTimeout() ? retryOnTimeouts : retryStatuses.contains(response.getStatusCode());
+    }
+
+    /**
+     * The delay in milliseconds before the given retry, starting from 1
+     */
+    long backoff(int retry) {
+        int shift = Math.min(retry - 1, 62);
+        // initialBackoff << shift exceeds maxBackoff, or overflows, when initialBackoff > maxBackoff >> shift
+        long ceiling = initialBackoff > maxBackoff >> shift ? maxBackoff : initialBackoff << shift;
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static class Builder {
+        private int          maxAttempts        = 3;
+        private Set<Integer> retryStatuses      = toSet(502, 503, 504);
+        private boolean      retryOnTimeouts    = true;
+        private boolean      retryNonIdempotent;
+        private long         initialBackoff     = 100;
+        private long         maxBackoff         = 2000;
+        private double       budgetRatio        = 0.1;
+        private int          budgetMinRetries   = 10;
+
+        private Builder() {
+        }
+
+        /**
+         * The attempts of a request including the first one. Default: 3
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("A request needs at least 1 attempt");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The status codes that are retried, replacing the default ones. Default: 502, 503, 504.
+         * The 500 responses built by the client for I/O errors are retried when 500 is listed.
+         */
+        public Builder retryOnStatus(int... statusCodes) {
+            this.retryStatuses = toSet(statusCodes);
+            return this;
+        }
+
+        /**
+         * Whether the requests that time out are retried. Default: true
+         */
+        public Builder retryOnTimeouts(boolean retryOnTimeouts) {
+            this.retryOnTimeouts = retryOnTimeouts;
+            return this;
+        }
+
+        /**
+         * Retries the POST and PATCH requests like the idempotent ones, for backends that detect the duplicates
+         */
+        public Builder retryNonIdempotent() {
+            this.retryNonIdempotent = true;
+            return this;
+        }
+
+        /**
+         * The maximum delay in milliseconds before the first retry, doubled for each following one up to {@code maxBackoff}. Default: 100ms to 2s.
+         * An initial backoff of 0 retries straight away.
+         */
+        public Builder backoff(long initialBackoff, long maxBackoff) {
+            if (initialBackoff < 0 || maxBackoff < initialBackoff) {
+                throw new IllegalArgumentException("The backoff needs 0 <= initialBackoff <= maxBackoff");
+            }
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * The share of the requests that can be retried, eg: 0.1 for at most 10% extra load. Default: 0.1
+         */
+        public Builder retryBudget(double ratio) {
+            return retryBudget(ratio, budgetMinRetries);
+        }
+
+        /**
+         * The share of the requests that can be retried and the retries that can be saved for the bursts of a quiet client. Default: 0.1 and 10
+         */
+        public Builder retryBudget(double ratio, int minRetries) {
+            if (!(ratio >= 0 && ratio <= 1) || minRetries < 0) {
+                throw new IllegalArgumentException("The retry budget needs a ratio between 0 and 1 and at least 0 min retries");
+            }
+            this.budgetRatio = ratio;
+            this.budgetMinRetries = minRetries;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+
+        private static Set<Integer> toSet(int... statusCodes) {
+            Set<Integer> set = new HashSet<>();
+            for (int statusCode : statusCodes) {
+                set.add(statusCode);
+            }
+            return set;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the same request to several replicas at once and returns as soon as enough valid responses arrived, eg:
+ * <pre>
+ * List&lt;WellRestedResponse&gt; responses = ScatterGatherRequest.of(replicaRequests).first(2).deadline(200).submit();
+ * </pre>
+ * A response counts when {@link WellRestedResponse#isValid()} returns true. Once enough valid responses arrived,
+ * or the deadline expired, the requests still in flight are cancelled so they release their pooled connections.
+ */
+public class ScatterGatherRequest {
+    private final List<RequestResource> requests;
+
+    private int  required = 1;
+    private Long deadline;
+
+    private ScatterGatherRequest(Collection<? extends RequestResource> requests) {
+        this.requests = new ArrayList<>(requests);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there are no requests
+     */
+    public static ScatterGatherRequest of(Collection<? extends RequestResource> requests) {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one request is required");
+        }
+        return new ScatterGatherRequest(requests);
+    }
+
+    /**
+     * Completes as soon as this number of valid responses arrived. Default: {@code 1} (the fastest valid response)
+     */
+    public ScatterGatherRequest first(int required) {
+        if (required < 1 || required > requests.size()) {
+            throw new IllegalArgumentException("The number of required responses must be between 1 and the number of requests");
+        }
+        this.required = required;
+        return this;
+    }
+
+    /**
+     * Completes as soon as a majority of the requests returned a valid response
+     */
+    public ScatterGatherRequest quorum() {
+        return first(requests.size() / 2 + 1);
+    }
+
+    /**
+     * The total time in milliseconds to wait for the responses. When it expires the valid responses received so far are returned,
+     * even if there are fewer than required. By default it waits for all requests to complete (or time out).
+     */
+    public ScatterGatherRequest deadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Submits all requests and waits for the result. See {@link #submitAsync()}
+     */
+    public List<WellRestedResponse> submit() {
+        return submitAsync().join();
+    }
+
+    /**
+     * Submits all requests at once. The future completes with the valid responses in arrival order:
+     * as many as required when enough arrived in time, fewer when the deadline expired or too many requests failed.
+     */
+    public CompletableFuture<List<WellRestedResponse>> submitAsync() {
+        return new Gather().start();
+    }
+
+    private class Gather {
+        private final CompletableFuture<List<WellRestedResponse>> result         = new CompletableFuture<>();
+        private final List<WellRestedResponse>                    validResponses = new ArrayList<>(required);
+        private final AtomicInteger                               pending        = new AtomicInteger(requests.size());
+        private final List<CompletableFuture<WellRestedResponse>> futures        = new ArrayList<>(requests.size());
+
+        // set on the calling thread, read by the timer and the response callbacks
+        private volatile ScheduledFuture<?> deadlineTimer;
+
+        private CompletableFuture<List<WellRestedResponse>> start() {
+            for (RequestResource request : requests) {
+                futures.add(request.submitAsync());
+            }
+            if (deadline != null) {
+                deadlineTimer = Timers.schedule(this::finish, deadline);
+            }
+            futures.forEach(future -> future.whenComplete(this::onResponse));
+            // also stops the requests in flight when the caller cancels the result
+            result.whenComplete((responses, ex) -> stop());
+            return result;
+        }
+
+        private void onResponse(WellRestedResponse response, Throwable ex) {
+            boolean enough = false;
+            if (ex == null && response.isValid()) {
+                synchronized (validResponses) {
+                    if (validResponses.size() < required) {
+                        validResponses.add(response);
+                    }
+                    enough = validResponses.size() == required;
+                }
+            }
+            if (pending.decrementAndGet() == 0 || enough) {
+                finish();
+            }
+        }
+
+        /**
+         * Stops the requests still in flight before completing the result, so callers waiting on it find them cancelled
+         */
+        private void finish() {
+            stop();
+            synchronized (validResponses) {
+                result.complete(new ArrayList<>(validResponses));
+            }
+        }
+
+        private void stop() {
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+            futures.stream().filter(future -> !future.isDone()).forEach(future -> future.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.Method;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses identical requests of a WellRestedRequest in flight at the same time: the first caller sends the request
+ * and the callers arriving while it's in flight wait for it and get a copy of its {@link WellRestedResponse}.
+ * <br/>
+ * Requests are identical when they have the same method, URI, credentials, token provider, options and values for the chosen key headers.
+ * When the request in flight is cancelled the waiting callers don't take its response, one of them sends the request again.
+ * An async request is only cancelled once all its callers cancelled their futures.
+ */
+class SingleFlight {
+    private final ConcurrentMap<List<Object>, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final Set<String>                       keyHeaders = new TreeSet<>();
+    private final UnaryOperator<WellRestedResponse> copy;
+
+    SingleFlight(String[] keyHeaders, UnaryOperator<WellRestedResponse> copy) {
+        Arrays.stream(keyHeaders).map(name -> name.toLowerCase(Locale.ROOT)).forEach(this.keyHeaders::add);
+        this.copy = copy;
+    }
+
+    List<Object> key(Method method, URI uri, Credentials credentials, Object tokenProvider, RequestOptions options,
+                     List<Header> headers, List<Header> globalHeaders) {
+        List<Object> key = new ArrayList<>();
+        key.add(method);
+        key.add(uri);
+        key.add(credentials);
+        key.add(tokenProvider);
+        key.add(options);
+        for (String keyHeader : keyHeaders) {
+            key.add(keyHeader);
+            addHeaderValues(key, keyHeader, headers);
+            addHeaderValues(key, keyHeader, globalHeaders);
+        }
+        return key;
+    }
+
+    private static void addHeaderValues(List<Object> key, String name, List<Header> headers) {
+        if (headers != null) {
+            headers.stream().filter(header -> header.getName().equalsIgnoreCase(name)).map(Header::getValue).forEach(key::add);
+        }
+    }
+
+    /**
+     * Sends the request on the calling thread, unless an identical one is already in flight
+     *
+     * @param timeout the maximum wait in milliseconds for the request in flight, 0 for no limit
+     * @throws TimeoutException     if the request in flight takes longer than the timeout
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the request in flight
+     */
+    WellRestedResponse execute(List<Object> key, long timeout, Supplier<WellRestedResponse> request) throws InterruptedException, TimeoutException {
+        long expiresAt = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+        while (true) {
+            Flight flight = new Flight();
+            Flight current = inFlight.putIfAbsent(key, flight);
+            if (current == null) {
+                return lead(key, flight, request);
+            }
+            if (!current.join()) {
+                // all its callers left, it's being cancelled
+                inFlight.remove(key, current);
+                continue;
+            }
+            WellRestedResponse response;
+            try {
+                response = await(current.response, expiresAt);
+            } finally {
+                leave(key, current);
+            }
+            if (response != null) {
+                return copy.apply(response);
+            }
+        }
+    }
+
+    /**
+     * The sync leader never leaves its flight, so the request runs to the end for the callers waiting on it
+     */
+    private WellRestedResponse lead(List<Object> key, Flight flight, Supplier<WellRestedResponse> request) {
+        WellRestedResponse response;
+        try {
+            response = request.get();
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, flight);
+            flight.response.completeExceptionally(ex);
+            throw ex;
+        }
+        inFlight.remove(key, flight);
+        flight.response.complete(response);
+        return response;
+    }
+
+    /**
+     * Waits for the response of the request in flight, null if it was cancelled
+     */
+    private static WellRestedResponse await(CompletableFuture<WellRestedResponse> current, long expiresAt) throws InterruptedException, TimeoutException {
+        try {
+            WellRestedResponse response = expiresAt == 0
+                                          ? current.get()
+                                          : current.get(Math.max(expiresAt - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            return response.isCancelled() ? null : response;
+        } catch (CancellationException ex) {
+            return null;
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : new CompletionException(ex.getCause());
+        }
+    }
+
+    /**
+     * Submits the request, unless an identical one is already in flight.
+     * Every caller gets its own future so cancelling it doesn't affect the other callers.
+     */
+    CompletableFuture<WellRestedResponse> executeAsync(List<Object> key, Supplier<CompletableFuture<WellRestedResponse>> request) {
+        Flight flight = new Flight();
+        Flight current = inFlight.putIfAbsent(key, flight);
+        if (current != null) {
+            if (current.join()) {
+                return follow(key, current, request);
+            }
+            inFlight.remove(key, current);
+            return executeAsync(key, request);
+        }
+
+        CompletableFuture<WellRestedResponse> sent;
+        try {
+            sent = request.get();
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, flight);
+            flight.response.completeExceptionally(ex);
+            throw ex;
+        }
+        flight.sent = sent;
+        sent.whenComplete((response, ex) -> {
+            inFlight.remove(key, flight);
+            if (ex != null) {
+                flight.response.completeExceptionally(ex);
+            } else {
+                flight.response.complete(response);
+            }
+        });
+
+        CompletableFuture<WellRestedResponse> leader = new CompletableFuture<>();
+        flight.response.whenComplete((response, ex) -> {
+            if (ex != null) {
+                leader.completeExceptionally(ex);
+            } else {
+                leader.complete(response);
+            }
+        });
+        leader.whenComplete((response, ex) -> {
+            if (leader.isCancelled()) {
+                leave(key, flight);
+            }
+        });
+        return leader;
+    }
+
+    private CompletableFuture<WellRestedResponse> follow(List<Object> key, Flight current, Supplier<CompletableFuture<WellRestedResponse>> request) {
+        CompletableFuture<WellRestedResponse> follower = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<WellRestedResponse>> resent = new AtomicReference<>();
+        current.response.whenComplete((response, ex) -> {
+            if (follower.isDone()) {
+                return;
+            }
+            if (ex instanceof CancellationException || ex == null && response.isCancelled()) {
+                CompletableFuture<WellRestedResponse> next;
+                try {
+                    next = executeAsync(key, request);
+                } catch (RuntimeException nextEx) {
+                    follower.completeExceptionally(nextEx);
+                    return;
+                }
+                resent.set(next);
+                if (follower.isCancelled()) {
+                    next.cancel(true);
+                }
+                next.whenComplete((nextResponse, nextEx) -> {
+                    if (nextEx != null) {
+                        follower.completeExceptionally(nextEx);
+                    } else {
+                        follower.complete(nextResponse);
+                    }
+                });
+            } else if (ex != null) {
+                follower.completeExceptionally(ex);
+            } else {
+                follower.complete(copy.apply(response));
+            }
+        });
+        follower.whenComplete((response, ex) -> {
+            if (follower.isCancelled()) {
+                CompletableFuture<WellRestedResponse> next = resent.get();
+                if (next != null) {
+                    next.cancel(true);
+                } else {
+                    leave(key, current);
+                }
+            }
+        });
+        return follower;
+    }
+
+    /**
+     * Cancels the async request of the flight when its last caller leaves before it completes
+     */
+    private void leave(List<Object> key, Flight flight) {
+        if (flight.leave()) {
+            inFlight.remove(key, flight);
+            CompletableFuture<WellRestedResponse> sent = flight.sent;
+            if (sent != null) {
+                sent.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * A request in flight and the number of callers waiting for it, the leader included
+     */
+    private static class Flight {
+        private final CompletableFuture<WellRestedResponse> response = new CompletableFuture<>();
+        private final AtomicInteger                         callers  = new AtomicInteger(1);
+
+        private volatile CompletableFuture<WellRestedResponse> sent;
+
+        /**
+         * Adds a caller, false when all the callers already left
+         */
+        private boolean join() {
+            int current;
+            do {
+                current = callers.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!callers.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Removes a caller, true when it was the last one
+         */
+        private boolean leave() {
+            return callers.decrementAndGet() == 0;
+        }
+    }
+}
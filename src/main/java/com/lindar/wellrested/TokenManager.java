@@ -0,0 +1,189 @@
+package com.lindar.wellrested;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the current token of a {@link TokenProvider} and the {@code Authorization} header built from it.
+ * <p>
+ * A refresh is scheduled on the shared {@link Timers} ahead of the expiry of every token and runs on the given executor,
+ * so the requests keep using the current token meanwhile. Only one refresh runs at a time: the requests that need a token
+ * while none is valid wait for the running refresh instead of starting their own.
+ * </p>
+ * A failed background refresh is retried by the requests that see the token about to expire, at most once per {@link #RETRY_DELAY}.
+ */
+@Slf4j
+class TokenManager {
+    static final long DEFAULT_REFRESH_AHEAD = 30000;
+    static final long RETRY_DELAY           = 1000;
+
+    private final TokenProvider                                  provider;
+    private final long                                           refreshAhead;
+    private final Executor                                       executor;
+    private final AtomicReference<CompletableFuture<CachedToken>> refreshing = new AtomicReference<>();
+    private volatile CachedToken                                 current;
+    private volatile long                                        nextRetry;
+    private volatile ScheduledFuture<?>                          scheduledRefresh;
+    private volatile boolean                                     closed;
+
+    TokenManager(TokenProvider provider, long refreshAhead, Executor executor) {
+        this.provider = provider;
+        this.refreshAhead = refreshAhead;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the header of the current token, waiting for a new one if it expired or there's none yet
+     *
+     * @throws IOException if the token couldn't be fetched
+     */
+    Header authorization() throws IOException {
+        CachedToken token = current;
+        long now = System.currentTimeMillis();
+        if (token != null && now < token.expiresAt) {
+            if (now >= token.refreshAt && now >= nextRetry) {
+                // the background refresh failed or is late
+                refresh(executor);
+            }
+            return token.header;
+        }
+        return await(refresh(Runnable::run));
+    }
+
+    /**
+     * Like {@link #authorization()} without blocking: when there's no valid token the future completes once the refresh
+     * running on the executor fetched one, or fails with the {@link IOException} of the refresh
+     */
+    CompletableFuture<Header> authorizationAsync() {
+        CachedToken token = current;
+        long now = System.currentTimeMillis();
+        if (token != null && now < token.expiresAt) {
+            if (now >= token.refreshAt && now >= nextRetry) {
+                refresh(executor);
+            }
+            return CompletableFuture.completedFuture(token.header);
+        }
+        CompletableFuture<Header> authorization = new CompletableFuture<>();
+        refresh(executor).whenComplete((refreshed, ex) -> {
+            if (ex != null) {
+                authorization.completeExceptionally(failure(ex));
+            } else {
+                authorization.complete(refreshed.header);
+            }
+        });
+        return authorization;
+    }
+
+    /**
+     * Stops refreshing the token in the background
+     */
+    void close() {
+        closed = true;
+        ScheduledFuture<?> refresh = scheduledRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+    }
+
+    /**
+     * Starts a refresh on the given executor or returns the one already running
+     */
+    private CompletableFuture<CachedToken> refresh(Executor runOn) {
+        CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+        CompletableFuture<CachedToken> running;
+        while ((running = refreshing.get()) == null) {
+            if (refreshing.compareAndSet(null, refresh)) {
+                try {
+                    runOn.execute(() -> fetch(refresh));
+                } catch (RejectedExecutionException ex) {
+                    failed(refresh, ex);
+                }
+                return refresh;
+            }
+        }
+        return running;
+    }
+
+    private void fetch(CompletableFuture<CachedToken> refresh) {
+        CachedToken token;
+        try {
+            AccessToken accessToken = provider.fetchToken();
+            if (accessToken == null) {
+                throw new IOException("The token provider returned no token");
+            }
+            token = new CachedToken(accessToken, refreshAhead);
+        } catch (IOException | RuntimeException ex) {
+            failed(refresh, ex);
+            return;
+        }
+        current = token;
+        scheduleRefresh(token);
+        refreshing.set(null);
+        refresh.complete(token);
+    }
+
+    private void failed(CompletableFuture<CachedToken> refresh, Exception ex) {
+        log.warn("Failed to fetch the access token", ex);
+        nextRetry = System.currentTimeMillis() + RETRY_DELAY;
+        refreshing.set(null);
+        refresh.completeExceptionally(ex);
+    }
+
+    private void scheduleRefresh(CachedToken token) {
+        if (token.refreshAt == Long.MAX_VALUE || closed) {
+            return;
+        }
+        scheduledRefresh = Timers.schedule(() -> {
+            if (!closed) {
+                refresh(executor);
+            }
+        }, Math.max(token.refreshAt - System.currentTimeMillis(), 0));
+    }
+
+    private static Header await(CompletableFuture<CachedToken> refresh) throws IOException {
+        try {
+            return refresh.get().header;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the access token");
+        } catch (ExecutionException ex) {
+            throw failure(ex.getCause());
+        }
+    }
+
+    private static IOException failure(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause instanceof IOException ? (IOException) cause : new IOException("Failed to fetch the access token", cause);
+    }
+
+    private static class CachedToken {
+        private final Header header;
+        private final long   expiresAt;
+        private final long   refreshAt;
+
+        CachedToken(AccessToken token, long refreshAhead) {
+            this.header = new BasicHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token.getValue());
+            if (token.getExpiresAt() == null) {
+                this.expiresAt = Long.MAX_VALUE;
+                this.refreshAt = Long.MAX_VALUE;
+            } else {
+                this.expiresAt = token.getExpiresAt().toEpochMilli();
+                // short-lived tokens are refreshed half way through their lifetime
+                long lifetime = Math.max(expiresAt - System.currentTimeMillis(), 0);
+                this.refreshAt = expiresAt - Math.min(refreshAhead, lifetime / 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.lindar.wellrested;
+
+import java.io.IOException;
+
+/**
+ * Fetches the bearer tokens a WellRestedRequest sends in the {@code Authorization} header, eg: from an OAuth2 token endpoint
+ * (see {@link ClientCredentialsTokenProvider}). See {@link WellRestedRequestBuilder#tokenProvider(TokenProvider)}
+ */
+@FunctionalInterface
+public interface TokenProvider {
+    /**
+     * Called when there's no token yet or the current one is about to expire. Only one call runs at a time for a WellRestedRequest.
+     *
+     * @throws IOException if the token can't be fetched, the requests waiting for it get an error response
+     */
+    AccessToken fetchToken() throws IOException;
+}
@@ -0,0 +1,21 @@
+package com.lindar.wellrested;
+
+/**
+ * The traffic class of a request, from the highest priority to the lowest:
+ * <pre>
+ * request.get().trafficClass(TrafficClass.BATCH).submit();
+ * </pre>
+ * Requests are {@link #DEFAULT} unless tagged. The classes only change the order in which requests get a pooled connection,
+ * see {@link WellRestedRequestBuilder#prioritizeLeases()}.
+ */
+public enum TrafficClass {
+    /**
+     * Latency sensitive calls, eg: made while a user is waiting
+     */
+    INTERACTIVE,
+    DEFAULT,
+    /**
+     * Background jobs that can wait for a connection
+     */
+    BATCH
+}
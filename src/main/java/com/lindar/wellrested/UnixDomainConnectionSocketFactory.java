@@ -0,0 +1,382 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketImpl;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Connects the classic client to a unix domain socket instead of the host of the request.
+ * The request URI is still used for the Host header and the path, only the transport changes.
+ * <br/>
+ * The TCP options of the socket config (no delay, keep alive, linger, buffer sizes) don't apply and are ignored.
+ */
+class UnixDomainConnectionSocketFactory implements ConnectionSocketFactory {
+    /**
+     * The connection operator resolves the host before connecting. The address isn't used to connect to a unix domain socket
+     * so there's no point in looking it up.
+     */
+    static final DnsResolver NO_LOOKUP_DNS_RESOLVER = new DnsResolver() {
+        @Override
+        public InetAddress[] resolve(String host) {
+            return new InetAddress[]{InetAddress.getLoopbackAddress()};
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) {
+            return host;
+        }
+    };
+
+    private final Path socketPath;
+
+    UnixDomainConnectionSocketFactory(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+        return new UnixDomainSocket(socketPath);
+    }
+
+    @Override
+    public Socket connectSocket(TimeValue connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+        UnixDomainSocket unixDomainSocket = socket instanceof UnixDomainSocket ? (UnixDomainSocket) socket : new UnixDomainSocket(socketPath);
+        unixDomainSocket.connect(connectTimeout != null ? connectTimeout.toMillisecondsIntBound() : 0);
+        return unixDomainSocket;
+    }
+
+    /**
+     * Adapts a unix domain socket channel to the {@link Socket} API the classic connections are bound to.
+     * The channel is non-blocking so reads and writes can honour the socket timeout and the thread interrupt status.
+     */
+    private static class UnixDomainSocket extends Socket {
+        private final Path socketPath;
+
+        private SocketChannel channel;
+        private Selector      readSelector;
+        private Selector      writeSelector;
+        private InputStream   inputStream;
+        private OutputStream  outputStream;
+        private int           soTimeout;
+        private boolean       inputShutdown;
+        private boolean       outputShutdown;
+
+        private volatile boolean closed;
+
+        UnixDomainSocket(Path socketPath) throws SocketException {
+            super((SocketImpl) null);
+            this.socketPath = socketPath;
+        }
+
+        synchronized void connect(int timeout) throws IOException {
+            if (closed) {
+                throw new SocketException("Socket is closed");
+            }
+            if (channel != null) {
+                return;
+            }
+            SocketChannel connected = UnixDomainSockets.connect(socketPath, timeout);
+            try {
+                connected.configureBlocking(false);
+                readSelector = Selector.open();
+                writeSelector = Selector.open();
+                connected.register(readSelector, SelectionKey.OP_READ);
+                connected.register(writeSelector, SelectionKey.OP_WRITE);
+            } catch (IOException ex) {
+                connected.close();
+                closeSelectors();
+                throw ex;
+            }
+            channel = connected;
+            inputStream = new ChannelInputStream();
+            outputStream = new ChannelOutputStream();
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint) throws IOException {
+            connect(0);
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            connect(timeout);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            ensureConnected();
+            return inputStream;
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            ensureConnected();
+            return outputStream;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } finally {
+                closeSelectors();
+            }
+        }
+
+        private void closeSelectors() throws IOException {
+            if (readSelector != null) {
+                readSelector.close();
+            }
+            if (writeSelector != null) {
+                writeSelector.close();
+            }
+        }
+
+        private void ensureConnected() throws SocketException {
+            if (closed) {
+                throw new SocketException("Socket is closed");
+            }
+            if (channel == null) {
+                throw new SocketException("Socket is not connected");
+            }
+        }
+
+        @Override
+        public boolean isConnected() {
+            return channel != null;
+        }
+
+        @Override
+        public boolean isBound() {
+            return channel != null;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void shutdownInput() throws IOException {
+            ensureConnected();
+            channel.shutdownInput();
+            inputShutdown = true;
+        }
+
+        @Override
+        public void shutdownOutput() throws IOException {
+            ensureConnected();
+            channel.shutdownOutput();
+            outputShutdown = true;
+        }
+
+        @Override
+        public boolean isInputShutdown() {
+            return inputShutdown;
+        }
+
+        @Override
+        public boolean isOutputShutdown() {
+            return outputShutdown;
+        }
+
+        @Override
+        public synchronized void setSoTimeout(int timeout) {
+            this.soTimeout = timeout;
+        }
+
+        @Override
+        public synchronized int getSoTimeout() {
+            return soTimeout;
+        }
+
+        @Override
+        public SocketAddress getRemoteSocketAddress() {
+            return UnixDomainSockets.address(socketPath);
+        }
+
+        @Override
+        public SocketAddress getLocalSocketAddress() {
+            return null;
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return null;
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return InetAddress.getLoopbackAddress();
+        }
+
+        @Override
+        public int getPort() {
+            return 0;
+        }
+
+        @Override
+        public int getLocalPort() {
+            return -1;
+        }
+
+        @Override
+        public void setTcpNoDelay(boolean on) {
+        }
+
+        @Override
+        public boolean getTcpNoDelay() {
+            return false;
+        }
+
+        @Override
+        public void setSoLinger(boolean on, int linger) {
+        }
+
+        @Override
+        public int getSoLinger() {
+            return -1;
+        }
+
+        @Override
+        public void setKeepAlive(boolean on) {
+        }
+
+        @Override
+        public boolean getKeepAlive() {
+            return false;
+        }
+
+        @Override
+        public void setReuseAddress(boolean on) {
+        }
+
+        @Override
+        public boolean getReuseAddress() {
+            return false;
+        }
+
+        @Override
+        public void setSendBufferSize(int size) {
+        }
+
+        @Override
+        public int getSendBufferSize() {
+            return 0;
+        }
+
+        @Override
+        public void setReceiveBufferSize(int size) {
+        }
+
+        @Override
+        public int getReceiveBufferSize() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "UnixDomainSocket[" + socketPath + "]";
+        }
+
+        /**
+         * Waits until the channel is ready, throwing on timeout or when the thread is interrupted
+         */
+        private void await(Selector selector, int timeout, String operation) throws IOException {
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            while (true) {
+                long remaining = deadline > 0 ? deadline - System.currentTimeMillis() : 0;
+                if (deadline > 0 && remaining <= 0) {
+                    throw new SocketTimeoutException(operation + " timed out");
+                }
+                int ready = selector.select(remaining);
+                selector.selectedKeys().clear();
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Interrupted while waiting on " + socketPath);
+                }
+                if (ready > 0) {
+                    return;
+                }
+            }
+        }
+
+        private class ChannelInputStream extends InputStream {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int read = read(single, 0, 1);
+                return read < 0 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                int read = channel.read(buffer);
+                while (read == 0) {
+                    await(readSelector, getSoTimeout(), "Read");
+                    read = channel.read(buffer);
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                UnixDomainSocket.this.close();
+            }
+        }
+
+        private class ChannelOutputStream extends OutputStream {
+            @Override
+            public void write(int value) throws IOException {
+                write(new byte[]{(byte) value}, 0, 1);
+            }
+
+            /**
+             * The socket timeout applies to each wait for room in the send buffer, like it does to each read
+             */
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    if (channel.write(buffer) == 0) {
+                        await(writeSelector, getSoTimeout(), "Write");
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                UnixDomainSocket.this.close();
+            }
+        }
+    }
+}
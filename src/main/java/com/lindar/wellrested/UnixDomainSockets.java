@@ -0,0 +1,117 @@
+package com.lindar.wellrested;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opens AF_UNIX socket channels, available from Java 16. The library targets Java 8 so the new APIs are looked up reflectively.
+ */
+@UtilityClass
+class UnixDomainSockets {
+    private static final ProtocolFamily UNIX;
+    private static final Method         OPEN_CHANNEL;
+    private static final Method         ADDRESS_OF;
+
+    static {
+        ProtocolFamily unix = null;
+        Method openChannel = null;
+        Method addressOf = null;
+        try {
+            unix = StandardProtocolFamily.valueOf("UNIX");
+            openChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+        } catch (IllegalArgumentException | ReflectiveOperationException ex) {
+            // running before Java 16
+        }
+        UNIX = unix;
+        OPEN_CHANNEL = openChannel;
+        ADDRESS_OF = addressOf;
+    }
+
+    static boolean isSupported() {
+        return ADDRESS_OF != null;
+    }
+
+    static ProtocolFamily protocolFamily() {
+        checkSupported();
+        return UNIX;
+    }
+
+    static SocketAddress address(Path path) {
+        checkSupported();
+        try {
+            return (SocketAddress) ADDRESS_OF.invoke(null, path);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Unable to create the unix domain socket address of " + path, ex);
+        }
+    }
+
+    /**
+     * Opens a blocking channel connected to the socket file. A connect that takes longer than the timeout, eg: because the
+     * backlog of the server is full, is aborted by closing the channel.
+     *
+     * @param timeout the connect timeout in milliseconds, 0 for no timeout
+     * @throws SocketTimeoutException if it takes longer than the timeout
+     */
+    static SocketChannel connect(Path path, int timeout) throws IOException {
+        SocketChannel channel;
+        try {
+            channel = (SocketChannel) OPEN_CHANNEL.invoke(null, protocolFamily());
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException("Unable to open a unix domain socket channel", ex);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IllegalStateException("Unable to open a unix domain socket channel", ex.getCause());
+        }
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> timer = timeout > 0 ? Timers.schedule(() -> {
+            expired.set(true);
+            closeQuietly(channel);
+        }, timeout) : null;
+        try {
+            channel.connect(address(path));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            if (expired.get()) {
+                throw new SocketTimeoutException("Connect timed out after " + timeout + "ms");
+            }
+            throw ex;
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+        if (expired.get()) {
+            channel.close();
+            throw new SocketTimeoutException("Connect timed out after " + timeout + "ms");
+        }
+        return channel;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            // the connect fails either way
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lindar.wellrested;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A path template like {@code /users/{id}/posts?page={page}} compiled once against the base URI of a WellRestedRequest.
+ * Expanding it only appends the literal parts and the encoded values to a single StringBuilder.
+ * <br/>
+ * Values in the path are encoded as a path segment (a {@code /} in a value is encoded too), values after the {@code ?} as a query parameter value.
+ * The literal parts of the template are used as they are.
+ */
+final class UriTemplate {
+    private static final char[]    HEX        = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] PATH_SAFE  = safeCharacters("!$&'()*+,;=:@");
+    private static final boolean[] QUERY_SAFE = safeCharacters("!$'()*,;:@/?");
+
+    private final String[]  literals;
+    private final String[]  names;
+    private final boolean[] inQuery;
+    private final int       literalsLength;
+
+    private UriTemplate(List<String> literals, List<String> names, List<Boolean> inQuery) {
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        this.inQuery = new boolean[inQuery.size()];
+        for (int i = 0; i < this.inQuery.length; i++) {
+            this.inQuery[i] = inQuery.get(i);
+        }
+        this.literalsLength = literals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compiles the template relative to the scheme, host and path of the base URI. The query of the base URI is not kept.
+     *
+     * @throws IllegalArgumentException if a variable isn't closed
+     */
+    static UriTemplate compile(URI base, String template) {
+        StringBuilder literal = new StringBuilder(base.getScheme()).append("://").append(base.getRawAuthority());
+        String basePath = base.getRawPath() != null ? base.getRawPath() : "";
+        if (basePath.endsWith("/") && template.startsWith("/")) {
+            literal.append(basePath, 0, basePath.length() - 1);
+        } else {
+            literal.append(basePath);
+            if (!basePath.endsWith("/") && !template.isEmpty() && !template.startsWith("/") && !template.startsWith("?")) {
+                literal.append('/');
+            }
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> inQuery = new ArrayList<>();
+        boolean query = false;
+        int position = 0;
+        while (position < template.length()) {
+            char current = template.charAt(position);
+            if (current == '{') {
+                int end = template.indexOf('}', position);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed variable in URI template: " + template);
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(template.substring(position + 1, end));
+                inQuery.add(query);
+                position = end + 1;
+            } else {
+                query |= current == '?';
+                literal.append(current);
+                position++;
+            }
+        }
+        literals.add(literal.toString());
+        return new UriTemplate(literals, names, inQuery);
+    }
+
+    /**
+     * Expands the variables in order with the given values
+     *
+     * @throws IllegalArgumentException if the number of values doesn't match the variables or a value is null
+     */
+    String expand(Object... values) {
+        if (values.length != names.length) {
+            throw new IllegalArgumentException("The URI template expects " + names.length + " values but got " + values.length);
+        }
+        StringBuilder uri = new StringBuilder(literalsLength + 16 * names.length);
+        uri.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("No value for the URI template variable " + names[i]);
+            }
+            encode(uri, values[i].toString(), inQuery[i] ? QUERY_SAFE : PATH_SAFE);
+            uri.append(literals[i + 1]);
+        }
+        return uri.toString();
+    }
+
+    /**
+     * Appends the value percent-encoded, without encoding anything when all its characters are safe
+     */
+    private static void encode(StringBuilder out, String value, boolean[] safe) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 128 || !safe[c]) {
+                out.append(value, 0, i);
+                encodeFrom(out, value.substring(i), safe);
+                return;
+            }
+        }
+        out.append(value);
+    }
+
+    private static void encodeFrom(StringBuilder out, String value, boolean[] safe) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xFF;
+            if (c < 128 && safe[c]) {
+                out.append((char) c);
+            } else {
+                out.append('%').append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    /**
+     * The unreserved characters of RFC 3986 plus the given ones
+     */
+    private static boolean[] safeCharacters(String extra) {
+        boolean[] safe = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            safe[c] = true;
+        }
+        for (char c : "-._~".toCharArray()) {
+            safe[c] = true;
+        }
+        for (char c : extra.toCharArray()) {
+            safe[c] = true;
+        }
+        return safe;
+    }
+}
@@ -0,0 +1,21 @@
+package com.lindar.wellrested;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Java 8 version, virtual threads are not available so callers keep their current behaviour. <br/>
+ * The Java 21 layer of the multi-release jar ({@code src/main/java21}) replaces this class.
+ */
+@UtilityClass
+class VirtualThreads {
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    static ExecutorService newPerTaskExecutor() {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+    }
+}
@@ -6,46 +6,144 @@ import com.lindar.wellrested.util.WellRestedUtil;
 import com.lindar.wellrested.vo.WellRestedResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.auth.AuthCache;
+import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.fluent.Executor;
 import org.apache.hc.client5.http.fluent.Request;
+import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Method;
 import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.DeadlineTimeoutException;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Sends requests to one URI. A WellRestedRequest is thread-safe, build it once and share it between threads so they
+ * reuse its connection pools. The global headers can be changed at any time, see {@link #globalHeaders(List)}.
+ */
 @Slf4j
-public class WellRestedRequest {
+public class WellRestedRequest implements Closeable {
     public static int DEFAULT_TIMEOUT = 10000;
 
+    private static final String              IDEMPOTENCY_KEY     = "Idempotency-Key";
     private static final JsonMapper          DEFAULT_JSON_MAPPER = new GsonJsonMapper.Builder().build(); // use the builder so some defaults are set
+    private static final CloseableHttpClient DEFAULT_HTTP_CLIENT;
     private static final CloseableHttpClient INTERNAL_STATELESS_HTTP_CLIENT;
+    private static final LazyAsyncHttpClient DEFAULT_ASYNC_HTTP_CLIENT = new LazyAsyncHttpClient(
+            () -> ConnectionPoolSettings.defaultSettings().buildAsyncHttpClient());
+    private static final int                 MAX_CACHED_URI_TEMPLATES = 1024;
 
-    private final URI                 uri;
-    private final Credentials         credentials;
-    private final HttpHost            proxy;
-    private       List<Header>        globalHeaders;
-    private final boolean             disableCookiesForAuthRequests;
-    private final Timeout             connectionTimeout;
-    private final Timeout             responseTimeout;
-    private final JsonMapper          jsonMapper;
-    private final CloseableHttpClient client;
+    private final URI                                uri;
+    private final HttpHost                           target;
+    private final Credentials                        credentials;
+    private final HttpHost                           proxy;
+    private final AtomicReference<List<Header>>      globalHeaders;
+    private final boolean                            disableCookiesForAuthRequests;
+    private final Timeout                            connectionTimeout;
+    private final Timeout                            responseTimeout;
+    private final Timeout                            connectionRequestTimeout;
+    private final Integer                            deadline;
+    private final RequestConfig                      requestConfig;
+    private final BasicCredentialsProvider           credentialsProvider;
+    private final AuthCache                          authCache;
+    private final TokenManager                       tokens;
+    private final LoadShedder                        loadShedder;
+    private final LeaseScheduler                     leaseScheduler;
+    private final RetryPolicy                        retryPolicy;
+    private final RetryBudget                        retryBudget;
+    private final JsonMapper                         jsonMapper;
+    private final CloseableHttpClient                client;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final LazyAsyncHttpClient                asyncClient;
+    private final java.util.concurrent.Executor      asyncResponseExecutor;
+    private final boolean                            http2;
+    private final ExecutorService                    virtualThreadExecutor;
+    private final PipeliningRequester                pipeliningRequester;
+    private final SingleFlight                       singleFlight;
+    private final boolean                            classicTransportOnly;
+    private final boolean                            ownsClient;
+    private final boolean                            ownsAsyncClient;
+    private final AtomicInteger                      inFlight;
+    private final CompletableFuture<Void>            drained;
+    private final Set<CompletableFuture<WellRestedResponse>> exchanges;
+    private final AtomicBoolean                      closed;
+    private final ConcurrentMap<String, UriTemplate> uriTemplates;
 
     static {
+        // the same settings as the client of the fluent API, which sent the requests without a client of their own,
+        // with the leases gated so a virtual thread waiting for a connection isn't pinned
+        DEFAULT_HTTP_CLIENT = HttpClientBuilder
+                .create()
+                .useSystemProperties()
+                .setConnectionManager(new GatedConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                                                                                          .useSystemProperties()
+                                                                                                          .setMaxConnPerRoute(100)
+                                                                                                          .setMaxConnTotal(200)
+                                                                                                          .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                                                                                                          .build()))
+                .setKeepAliveStrategy(new KeepAliveStrategy(KeepAliveStrategy.DEFAULT_MAX_KEEP_ALIVE))
+                .setRetryStrategy(ClientRetryStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(ConnectionPoolSettings.DEFAULT_MAX_IDLE_TIME, TimeUnit.MILLISECONDS))
+                .build();
+
         PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
         connManager.setMaxTotal(200);
         connManager.setDefaultMaxPerRoute(100);
@@ -53,27 +151,147 @@ public class WellRestedRequest {
         INTERNAL_STATELESS_HTTP_CLIENT = HttpClientBuilder
                 .create()
                 .disableCookieManagement()
-                .setConnectionManager(connManager)
+                .setConnectionManager(new GatedConnectionManager(connManager))
+                .setKeepAliveStrategy(new KeepAliveStrategy(KeepAliveStrategy.DEFAULT_MAX_KEEP_ALIVE))
+                .setRetryStrategy(ClientRetryStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(ConnectionPoolSettings.DEFAULT_MAX_IDLE_TIME, TimeUnit.MILLISECONDS))
                 .build();
     }
 
-    WellRestedRequest(URI uri, Credentials credentials, HttpHost proxy, List<Header> globalHeaders,
-                      boolean disableCookiesForAuthRequests, Integer connectionTimeout, Integer responseTimeout,
-                      JsonMapper jsonMapper, CloseableHttpClient client) {
-        this.uri = uri;
-        this.credentials = credentials;
-        this.proxy = proxy;
-        this.globalHeaders = globalHeaders;
-        this.disableCookiesForAuthRequests = disableCookiesForAuthRequests;
-        this.connectionTimeout = connectionTimeout != null ? Timeout.of(connectionTimeout, TimeUnit.MILLISECONDS) : null;
-        this.responseTimeout = responseTimeout != null ? Timeout.of(responseTimeout, TimeUnit.MILLISECONDS) : null;
-
-        if (jsonMapper == null) {
+    WellRestedRequest(WellRestedRequestBuilder builder) {
+        this.uri = builder.getUri();
+        this.target = uri != null ? ConnectionPoolSettings.toHttpHost(uri) : null;
+        this.credentials = builder.getCredentials();
+        this.proxy = builder.getProxy();
+        this.globalHeaders = new AtomicReference<>(snapshot(builder.getGlobalHeaders()));
+        this.disableCookiesForAuthRequests = builder.isDisableCookiesForAuthRequests();
+        this.connectionTimeout = builder.getConnectionTimeout() != null ? Timeout.of(builder.getConnectionTimeout(), TimeUnit.MILLISECONDS) : null;
+        this.responseTimeout = builder.getResponseTimeout() != null ? Timeout.of(builder.getResponseTimeout(), TimeUnit.MILLISECONDS) : null;
+        this.connectionRequestTimeout = builder.getConnectionRequestTimeout() != null ? Timeout.of(builder.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS) : null;
+        this.deadline = builder.getDeadline();
+        this.requestConfig = buildRequestConfig();
+        this.credentialsProvider = buildCredentialsProvider();
+        this.authCache = credentials instanceof UsernamePasswordCredentials
+                         ? new PreemptiveAuthCache(target, (UsernamePasswordCredentials) credentials)
+                         : null;
+
+        if (builder.getJsonMapper() == null) {
             this.jsonMapper = DEFAULT_JSON_MAPPER;
         } else {
-            this.jsonMapper = jsonMapper;
+            this.jsonMapper = builder.getJsonMapper();
+        }
+
+        if (builder.getLoopbackHandler() != null) {
+            this.connectionManager = null;
+            this.client = HttpClientBuilder.create()
+                                           .setConnectionManager(new LoopbackConnectionManager(builder.getLoopbackHandler()))
+                                           .setRetryStrategy(ClientRetryStrategy.INSTANCE)
+                                           .build();
+        } else if (builder.getHttpClient() == null && builder.getPoolSettings() != null) {
+            this.connectionManager = builder.getPoolSettings().buildConnectionManager();
+            this.client = builder.getPoolSettings().buildHttpClient(this.connectionManager);
+        } else {
+            this.connectionManager = null;
+            this.client = builder.getHttpClient();
+        }
+
+        if (builder.getAsyncHttpClient() != null) {
+            CloseableHttpAsyncClient customAsyncClient = builder.getAsyncHttpClient();
+            this.asyncClient = new LazyAsyncHttpClient(() -> customAsyncClient);
+        } else if (builder.getPoolSettings() != null && builder.getPoolSettings().isHttp2()) {
+            ConnectionPoolSettings poolSettings = builder.getPoolSettings();
+            this.asyncClient = new LazyAsyncHttpClient(poolSettings::buildHttp2AsyncClient);
+        } else if (builder.getPoolSettings() != null) {
+            ConnectionPoolSettings poolSettings = builder.getPoolSettings();
+            this.asyncClient = new LazyAsyncHttpClient(poolSettings::buildAsyncHttpClient);
+        } else {
+            this.asyncClient = DEFAULT_ASYNC_HTTP_CLIENT;
         }
-        this.client = client;
+        this.asyncResponseExecutor = builder.getAsyncResponseExecutor() != null
+                                     ? builder.getAsyncResponseExecutor()
+                                     : ForkJoinPool.commonPool();
+        this.tokens = builder.getTokenProvider() != null
+                      ? new TokenManager(builder.getTokenProvider(), builder.getTokenRefreshAhead(), asyncResponseExecutor)
+                      : null;
+        // unix domain sockets and the loopback handler are only supported by the classic client
+        this.classicTransportOnly = builder.getLoopbackHandler() != null
+                                    || builder.getPoolSettings() != null && builder.getPoolSettings().getUnixDomainSocket() != null;
+        this.http2 = builder.getPoolSettings() != null && builder.getPoolSettings().isHttp2() && !classicTransportOnly;
+        this.virtualThreadExecutor = builder.isVirtualThreads() && VirtualThreads.isSupported()
+                                     ? VirtualThreadExecutorHolder.EXECUTOR
+                                     : null;
+        this.pipeliningRequester = builder.getPoolSettings() != null && builder.getPoolSettings().isPipelining() && !classicTransportOnly
+                                   ? builder.getPoolSettings().buildPipeliningRequester(timeoutOrDefault(responseTimeout))
+                                   : null;
+        this.singleFlight = builder.getSingleFlightKeyHeaders() != null
+                            ? new SingleFlight(builder.getSingleFlightKeyHeaders(), response -> WellRestedUtil.copyWellRestedResponse(response, jsonMapper))
+                            : null;
+        this.loadShedder = builder.getPoolSettings() != null && builder.getPoolSettings().getMaxPendingRequestsPerRoute() != null
+                           ? new LoadShedder(builder.getPoolSettings().maxConnectionsPerRoute(ConnectionPoolSettings.toHttpHost(uri)),
+                                             builder.getPoolSettings().getMaxPendingRequestsPerRoute())
+                           : null;
+        this.retryPolicy = builder.getRetryPolicy();
+        this.retryBudget = retryPolicy != null ? new RetryBudget(retryPolicy.getBudgetRatio(), retryPolicy.getBudgetMinRetries()) : null;
+        this.leaseScheduler = builder.getPoolSettings() != null && builder.getPoolSettings().isLeasePriority()
+                              ? new LeaseScheduler(builder.getPoolSettings().maxConnectionsPerRoute(ConnectionPoolSettings.toHttpHost(uri)),
+                                                   builder.getPoolSettings().getReservedConnections())
+                              : null;
+        this.ownsClient = builder.getLoopbackHandler() != null || this.connectionManager != null;
+        this.ownsAsyncClient = builder.getAsyncHttpClient() == null && builder.getPoolSettings() != null;
+        this.inFlight = new AtomicInteger();
+        this.drained = new CompletableFuture<>();
+        this.exchanges = ConcurrentHashMap.newKeySet();
+        this.closed = new AtomicBoolean();
+        this.uriTemplates = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A request to another URI of the same host, sharing the clients, global headers and lifecycle of the base request
+     */
+    private WellRestedRequest(WellRestedRequest base, URI uri) {
+        this.uri = uri;
+        this.target = base.target;
+        this.credentials = base.credentials;
+        this.proxy = base.proxy;
+        this.globalHeaders = base.globalHeaders;
+        this.disableCookiesForAuthRequests = base.disableCookiesForAuthRequests;
+        this.connectionTimeout = base.connectionTimeout;
+        this.responseTimeout = base.responseTimeout;
+        this.connectionRequestTimeout = base.connectionRequestTimeout;
+        this.deadline = base.deadline;
+        this.requestConfig = base.requestConfig;
+        this.credentialsProvider = base.credentialsProvider;
+        this.authCache = base.authCache;
+        this.tokens = base.tokens;
+        this.loadShedder = base.loadShedder;
+        this.leaseScheduler = base.leaseScheduler;
+        this.retryPolicy = base.retryPolicy;
+        this.retryBudget = base.retryBudget;
+        this.jsonMapper = base.jsonMapper;
+        this.client = base.client;
+        this.connectionManager = base.connectionManager;
+        this.asyncClient = base.asyncClient;
+        this.asyncResponseExecutor = base.asyncResponseExecutor;
+        this.http2 = base.http2;
+        this.virtualThreadExecutor = base.virtualThreadExecutor;
+        this.pipeliningRequester = base.pipeliningRequester;
+        this.singleFlight = base.singleFlight;
+        this.classicTransportOnly = base.classicTransportOnly;
+        this.ownsClient = base.ownsClient;
+        this.ownsAsyncClient = base.ownsAsyncClient;
+        this.inFlight = base.inFlight;
+        this.drained = base.drained;
+        this.exchanges = base.exchanges;
+        this.closed = base.closed;
+        this.uriTemplates = base.uriTemplates;
+    }
+
+    /**
+     * The executor is only created the first time a WellRestedRequest uses virtual threads
+     */
+    private static class VirtualThreadExecutorHolder {
+        private static final ExecutorService EXECUTOR = VirtualThreads.newPerTaskExecutor();
     }
 
     public static WellRestedRequestBuilder builder() {
@@ -84,9 +302,13 @@ public class WellRestedRequest {
      * Use this method to add some global headers to the WellRestedRequest object.
      * These headers are going to be added on every request you make. <br/>
      * A good use for this method is setting a global authentication header or a content type header.
+     * <p>
+     * The global headers are kept as an immutable snapshot which is replaced on every change, so they can be changed
+     * while other threads are submitting requests: each request sends either the previous or the new set of headers.
+     * </p>
      */
     public WellRestedRequest globalHeaders(List<Header> globalHeaders) {
-        this.globalHeaders = globalHeaders;
+        this.globalHeaders.set(snapshot(globalHeaders));
         return this;
     }
 
@@ -96,8 +318,7 @@ public class WellRestedRequest {
      * A good use for this method is setting a global authentication header or a content type header.
      */
     public WellRestedRequest globalHeaders(Map<String, String> globalHeaders) {
-        this.globalHeaders = WellRestedUtil.buildHeaders(globalHeaders);
-        return this;
+        return globalHeaders(WellRestedUtil.buildHeaders(globalHeaders));
     }
 
     /**
@@ -106,10 +327,13 @@ public class WellRestedRequest {
      * A good use for this method is setting a global authentication header or a content type header.
      */
     public WellRestedRequest addGlobalHeader(String name, String value) {
-        if (this.globalHeaders == null) {
-            this.globalHeaders = new ArrayList<>();
-        }
-        this.globalHeaders.add(new BasicHeader(name, value));
+        Header header = new BasicHeader(name, value);
+        this.globalHeaders.updateAndGet(current -> {
+            List<Header> updated = new ArrayList<>(current.size() + 1);
+            updated.addAll(current);
+            updated.add(header);
+            return Collections.unmodifiableList(updated);
+        });
         return this;
     }
 
@@ -117,12 +341,178 @@ public class WellRestedRequest {
      * Use this method to clear all global headers
      */
     public WellRestedRequest clearGlobalHeaders() {
-        if (this.globalHeaders != null) {
-            this.globalHeaders.clear();
-        }
+        this.globalHeaders.set(Collections.emptyList());
         return this;
     }
 
+    /**
+     * Returns the current global headers as an immutable list
+     */
+    public List<Header> getGlobalHeaders() {
+        return globalHeaders.get();
+    }
+
+    private static List<Header> snapshot(List<Header> headers) {
+        return headers == null || headers.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(headers));
+    }
+
+    /**
+     * Returns the statistics of the connection pool owned by this WellRestedRequest
+     * or null if no connection pool options were set on the builder.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager != null ? connectionManager.getTotalStats() : null;
+    }
+
+    /**
+     * Opens connections to the host of the URI ahead of the first requests, so they don't wait for the TCP and TLS handshakes,
+     * eg: before reporting the service as ready:
+     * <pre>
+     * request.warmUp(20, true).get(10, TimeUnit.SECONDS);
+     * </pre>
+     * Up to {@code connections} connections are opened in the pool of this WellRestedRequest, capped to the maximum number of connections
+     * for the host. When {@code probe} is set, a GET request is then sent to the URI to load the classes used to send requests and
+     * build responses; its response is ignored.
+     * <p>
+     * Connections are only opened when this WellRestedRequest owns a connection pool (see {@link WellRestedRequestBuilder#maxConnections(int)})
+     * and doesn't use a proxy, otherwise only the probe is sent.
+     * </p>
+     * The returned future completes with the statistics of the pool (null without a pool) or fails if a connection couldn't be opened.
+     */
+    public CompletableFuture<PoolStats> warmUp(int connections, boolean probe) {
+        CompletableFuture<Void> opened = connectionManager != null && proxy == null && connections > 0
+                                         ? openConnections(connections)
+                                         : CompletableFuture.completedFuture(null);
+        return opened.thenCompose(ignored -> probe
+                                             ? CompletableFuture.supplyAsync(() -> get().submit(), asyncResponseExecutor)
+                                             : CompletableFuture.completedFuture(null))
+                     .thenApply(ignored -> getPoolStats());
+    }
+
+    /**
+     * See {@link #warmUp(int, boolean)}
+     */
+    public CompletableFuture<PoolStats> warmUp(int connections) {
+        return warmUp(connections, false);
+    }
+
+    private CompletableFuture<Void> openConnections(int connections) {
+        return CompletableFuture.supplyAsync(() -> leaseEndpoints(connections), asyncResponseExecutor).thenCompose(endpoints -> {
+            CompletableFuture<?>[] connected = endpoints.stream()
+                                                        .map(endpoint -> CompletableFuture.runAsync(() -> connect(endpoint), asyncResponseExecutor))
+                                                        .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(connected).whenComplete((ignored, ex) -> endpoints.forEach(this::release));
+        });
+    }
+
+    /**
+     * All the endpoints are leased before connecting them, otherwise the pool would keep handing out the same connection
+     */
+    private List<ConnectionEndpoint> leaseEndpoints(int connections) {
+        HttpRoute route = ConnectionPoolSettings.toHttpRoute(ConnectionPoolSettings.toHttpHost(uri));
+        int count = Math.min(connections, connectionManager.getMaxPerRoute(route));
+        List<ConnectionEndpoint> endpoints = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                endpoints.add(connectionManager.lease("warm-up-" + i, route, null).get(timeoutOrDefault(connectionTimeout)));
+            }
+            return endpoints;
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            endpoints.forEach(this::release);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CompletionException(ex);
+        }
+    }
+
+    private void connect(ConnectionEndpoint endpoint) {
+        if (endpoint.isConnected()) {
+            return;
+        }
+        try {
+            connectionManager.connect(endpoint, timeoutOrDefault(connectionTimeout), HttpClientContext.create());
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    private void release(ConnectionEndpoint endpoint) {
+        connectionManager.release(endpoint, null, TimeValue.NEG_ONE_MILLISECOND);
+    }
+
+    /**
+     * Closes the connection pools and I/O threads owned by this WellRestedRequest, waiting up to the default timeout
+     * for the requests in flight to complete. See {@link #close(int)}
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Stops accepting requests, waits up to {@code drainTimeout} milliseconds for the requests in flight to complete and then
+     * closes the connection pools and I/O threads owned by this WellRestedRequest. The async requests still in flight after the timeout
+     * complete with the cancelled response, the blocking ones with an error response when their connection is closed.
+     * <p>
+     * Submitting a request after close throws an {@link IllegalStateException}. The shared default clients and the clients passed to
+     * {@link WellRestedRequestBuilder#customHttpClient} and {@link WellRestedRequestBuilder#customAsyncHttpClient} are left open.
+     * </p>
+     * Returns false if some requests were still in flight after the timeout.
+     */
+    public boolean close(int drainTimeout) {
+        closed.set(true);
+        if (inFlight.get() == 0) {
+            drained.complete(null);
+        }
+        boolean drainedInTime = awaitDrained(drainTimeout);
+        CloseMode closeMode = drainedInTime ? CloseMode.GRACEFUL : CloseMode.IMMEDIATE;
+        // the async clients don't always complete the exchanges they drop when closed immediately
+        exchanges.forEach(exchange -> exchange.complete(WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper)));
+        if (ownsClient) {
+            client.close(closeMode);
+        }
+        if (ownsAsyncClient) {
+            asyncClient.close(closeMode);
+        }
+        if (pipeliningRequester != null) {
+            pipeliningRequester.close(closeMode);
+        }
+        if (tokens != null) {
+            tokens.close();
+        }
+        return drainedInTime;
+    }
+
+    private boolean awaitDrained(int drainTimeout) {
+        try {
+            drained.get(drainTimeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * The request is counted before checking the closed flag, so close either sees it in flight or the request sees the flag
+     */
+    private void startRequest() {
+        inFlight.incrementAndGet();
+        if (closed.get()) {
+            endRequest();
+            throw new IllegalStateException("WellRestedRequest is closed");
+        }
+    }
+
+    private void endRequest() {
+        if (inFlight.decrementAndGet() == 0 && closed.get()) {
+            drained.complete(null);
+        }
+    }
+
     //********************* GET *******************************************************************/
 
     /**
@@ -132,7 +522,23 @@ public class WellRestedRequest {
         return new GetRequest();
     }
 
-    public class GetRequest implements RequestResource, HeadersSupport {
+    /**
+     * Allows you to configure and submit GET requests to a path of the URI of this WellRestedRequest, used as the base URL:
+     * <pre>
+     * WellRestedRequest api = WellRestedRequest.builder().url("https://api.example.com/v1").build();
+     * api.get("/users/{id}/posts?page={page}", userId, page).submit();
+     * </pre>
+     * The variables are replaced in order with the given values, percent-encoded for the path or the query.
+     * The templates are compiled once and cached. The request shares the connection pools, global headers and
+     * other settings of this WellRestedRequest.
+     *
+     * @throws IllegalArgumentException if the template is malformed or the number of values doesn't match its variables
+     */
+    public GetRequest get(String pathTemplate, Object... variables) {
+        return resolve(pathTemplate, variables).get();
+    }
+
+    public class GetRequest extends RequestOptionsSupport<GetRequest> implements RequestResource, HeadersSupport {
         private List<Header> headers;
 
         @Override
@@ -141,9 +547,25 @@ public class WellRestedRequest {
             return this;
         }
 
+        @Override
+        public GetRequest headers(Map<String, String> headers) {
+            return headers(WellRestedUtil.buildHeaders(headers));
+        }
+
         @Override
         public WellRestedResponse submit() {
-            return submitRequest(Request.get(uri), null, headers);
+            return execute(Method.GET, null, headers, options());
+        }
+
+        @Override
+        public CompletableFuture<WellRestedResponse> submitAsync() {
+            return executeAsync(Method.GET, null, headers, options());
+        }
+        /**
+         * See {@link WellRestedRequest#prepare(Method, HttpEntity, List)}
+         */
+        public PreparedRequest prepare() {
+            return WellRestedRequest.this.prepare(Method.GET, null, headers, options());
         }
     }
 
@@ -157,7 +579,14 @@ public class WellRestedRequest {
         return new PostRequest();
     }
 
-    public class PostRequest implements RequestResource, HeadersSupport, HttpEntitySupport {
+    /**
+     * Allows you to configure and submit POST requests to a path of the URI of this WellRestedRequest. See {@link #get(String, Object...)}
+     */
+    public PostRequest post(String pathTemplate, Object... variables) {
+        return resolve(pathTemplate, variables).post();
+    }
+
+    public class PostRequest extends RequestOptionsSupport<PostRequest> implements RequestResource, HeadersSupport, HttpEntitySupport {
         private List<Header> headers;
         private HttpEntity   httpEntity;
 
@@ -174,6 +603,11 @@ public class WellRestedRequest {
             return this;
         }
 
+        @Override
+        public PostRequest headers(Map<String, String> headers) {
+            return headers(WellRestedUtil.buildHeaders(headers));
+        }
+
         @Override
         public PostRequest httpEntity(HttpEntity httpEntity) {
             this.httpEntity = httpEntity;
@@ -182,7 +616,18 @@ public class WellRestedRequest {
 
         @Override
         public WellRestedResponse submit() {
-            return submitRequest(Request.post(uri), httpEntity, headers);
+            return execute(Method.POST, httpEntity, headers, options());
+        }
+
+        @Override
+        public CompletableFuture<WellRestedResponse> submitAsync() {
+            return executeAsync(Method.POST, httpEntity, headers, options());
+        }
+        /**
+         * See {@link WellRestedRequest#prepare(Method, HttpEntity, List)}
+         */
+        public PreparedRequest prepare() {
+            return WellRestedRequest.this.prepare(Method.POST, httpEntity, headers, options());
         }
     }
 
@@ -195,7 +640,14 @@ public class WellRestedRequest {
         return new PutRequest();
     }
 
-    public class PutRequest implements RequestResource, HeadersSupport, HttpEntitySupport {
+    /**
+     * Allows you to configure and submit PUT requests to a path of the URI of this WellRestedRequest. See {@link #get(String, Object...)}
+     */
+    public PutRequest put(String pathTemplate, Object... variables) {
+        return resolve(pathTemplate, variables).put();
+    }
+
+    public class PutRequest extends RequestOptionsSupport<PutRequest> implements RequestResource, HeadersSupport, HttpEntitySupport {
         private List<Header> headers;
         private HttpEntity   httpEntity;
 
@@ -212,6 +664,11 @@ public class WellRestedRequest {
             return this;
         }
 
+        @Override
+        public PutRequest headers(Map<String, String> headers) {
+            return headers(WellRestedUtil.buildHeaders(headers));
+        }
+
         @Override
         public PutRequest httpEntity(HttpEntity httpEntity) {
             this.httpEntity = httpEntity;
@@ -220,7 +677,18 @@ public class WellRestedRequest {
 
         @Override
         public WellRestedResponse submit() {
-            return submitRequest(Request.put(uri), httpEntity, headers);
+            return execute(Method.PUT, httpEntity, headers, options());
+        }
+
+        @Override
+        public CompletableFuture<WellRestedResponse> submitAsync() {
+            return executeAsync(Method.PUT, httpEntity, headers, options());
+        }
+        /**
+         * See {@link WellRestedRequest#prepare(Method, HttpEntity, List)}
+         */
+        public PreparedRequest prepare() {
+            return WellRestedRequest.this.prepare(Method.PUT, httpEntity, headers, options());
         }
     }
 
@@ -234,7 +702,14 @@ public class WellRestedRequest {
         return new DeleteRequest();
     }
 
-    public class DeleteRequest implements RequestResource, HeadersSupport, HttpEntitySupport {
+    /**
+     * Allows you to configure and submit DELETE requests to a path of the URI of this WellRestedRequest. See {@link #get(String, Object...)}
+     */
+    public DeleteRequest delete(String pathTemplate, Object... variables) {
+        return resolve(pathTemplate, variables).delete();
+    }
+
+    public class DeleteRequest extends RequestOptionsSupport<DeleteRequest> implements RequestResource, HeadersSupport, HttpEntitySupport {
         private List<Header> headers;
         private HttpEntity   httpEntity;
 
@@ -251,6 +726,11 @@ public class WellRestedRequest {
             return this;
         }
 
+        @Override
+        public DeleteRequest headers(Map<String, String> headers) {
+            return headers(WellRestedUtil.buildHeaders(headers));
+        }
+
         @Override
         public DeleteRequest httpEntity(HttpEntity httpEntity) {
             this.httpEntity = httpEntity;
@@ -259,7 +739,18 @@ public class WellRestedRequest {
 
         @Override
         public WellRestedResponse submit() {
-            return submitRequest(Request.delete(uri), httpEntity, headers);
+            return execute(Method.DELETE, httpEntity, headers, options());
+        }
+
+        @Override
+        public CompletableFuture<WellRestedResponse> submitAsync() {
+            return executeAsync(Method.DELETE, httpEntity, headers, options());
+        }
+        /**
+         * See {@link WellRestedRequest#prepare(Method, HttpEntity, List)}
+         */
+        public PreparedRequest prepare() {
+            return WellRestedRequest.this.prepare(Method.DELETE, httpEntity, headers, options());
         }
     }
 
@@ -272,7 +763,14 @@ public class WellRestedRequest {
         return new PatchRequest();
     }
 
-    public class PatchRequest implements RequestResource, HeadersSupport, HttpEntitySupport {
+    /**
+     * Allows you to configure and submit PATCH requests to a path of the URI of this WellRestedRequest. See {@link #get(String, Object...)}
+     */
+    public PatchRequest patch(String pathTemplate, Object... variables) {
+        return resolve(pathTemplate, variables).patch();
+    }
+
+    public class PatchRequest extends RequestOptionsSupport<PatchRequest> implements RequestResource, HeadersSupport, HttpEntitySupport {
         private List<Header> headers;
         private HttpEntity   httpEntity;
 
@@ -289,6 +787,11 @@ public class WellRestedRequest {
             return this;
         }
 
+        @Override
+        public PatchRequest headers(Map<String, String> headers) {
+            return headers(WellRestedUtil.buildHeaders(headers));
+        }
+
         @Override
         public PatchRequest httpEntity(HttpEntity httpEntity) {
             this.httpEntity = httpEntity;
@@ -297,13 +800,341 @@ public class WellRestedRequest {
 
         @Override
         public WellRestedResponse submit() {
-            return submitRequest(Request.patch(uri), httpEntity, headers);
+            return execute(Method.PATCH, httpEntity, headers, options());
+        }
+
+        @Override
+        public CompletableFuture<WellRestedResponse> submitAsync() {
+            return executeAsync(Method.PATCH, httpEntity, headers, options());
+        }
+        /**
+         * See {@link WellRestedRequest#prepare(Method, HttpEntity, List)}
+         */
+        public PreparedRequest prepare() {
+            return WellRestedRequest.this.prepare(Method.PATCH, httpEntity, headers, options());
         }
     }
 
     //******************** GENERAL *******************************************************************/
 
+    private WellRestedRequest resolve(String pathTemplate, Object... variables) {
+        UriTemplate template = uriTemplates.get(pathTemplate);
+        if (template == null) {
+            template = UriTemplate.compile(uri, pathTemplate);
+            // templates built from dynamic strings would grow the cache forever
+            if (uriTemplates.size() < MAX_CACHED_URI_TEMPLATES) {
+                uriTemplates.putIfAbsent(pathTemplate, template);
+            }
+        }
+        return new WellRestedRequest(this, URI.create(template.expand(variables)));
+    }
+
+    /**
+     * Freezes a request into a {@link PreparedRequest} that can be submitted many times, from any thread, with almost no setup per call,
+     * eg: for heartbeats and polling:
+     * <pre>
+     * PreparedRequest heartbeat = request.post().jsonContent(status).prepare();
+     * heartbeat.submit();
+     * </pre>
+     * The headers (including the current global headers) and the body are copied once, a body that can only be read once,
+     * eg: a stream, is buffered. Later changes to the global headers don't affect the prepared request.
+     *
+     * @throws UncheckedIOException if the body can't be read
+     */
+    public PreparedRequest prepare(Method method, HttpEntity httpEntity, List<Header> headers) {
+        return prepare(method, httpEntity, headers, RequestOptions.DEFAULT);
+    }
+
+    PreparedRequest prepare(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        List<Header> currentGlobalHeaders = globalHeaders.get();
+        List<Header> allHeaders = new ArrayList<>();
+        if (headers != null) {
+            allHeaders.addAll(headers);
+        }
+        allHeaders.addAll(currentGlobalHeaders);
+
+        byte[] body = null;
+        ContentType contentType = null;
+        if (httpEntity != null) {
+            try {
+                body = WellRestedUtil.toByteArray(httpEntity);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to read the body of the request to " + uri, ex);
+            }
+            contentType = httpEntity.getContentType() != null ? ContentType.parse(httpEntity.getContentType()) : null;
+        }
+        return new PreparedRequest(this, method, allHeaders.toArray(new Header[0]), body, contentType, options,
+                                   singleFlightKey(method, headers, currentGlobalHeaders, options));
+    }
+
+    private WellRestedResponse execute(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        return execute(singleFlightKey(method, headers, globalHeaders.get(), options), options,
+                       retrying(options, isRepeatable(httpEntity), isIdempotent(method, headers), attempt -> send(method, httpEntity, headers, attempt)));
+    }
+
+    private CompletableFuture<WellRestedResponse> executeAsync(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        return executeAsync(singleFlightKey(method, headers, globalHeaders.get(), options),
+                            retryingAsync(options, isRepeatable(httpEntity), isIdempotent(method, headers),
+                                          attempt -> sendAsync(() -> send(method, httpEntity, headers, attempt), () -> submitRequestAsync(method, httpEntity, headers, attempt))));
+    }
+
+    WellRestedResponse execute(PreparedRequest prepared) {
+        return execute(prepared.getSingleFlightKey(), prepared.getOptions(), retrying(prepared.getOptions(), true, isIdempotent(prepared), attempt -> send(prepared, attempt)));
+    }
+
+    CompletableFuture<WellRestedResponse> executeAsync(PreparedRequest prepared) {
+        return executeAsync(prepared.getSingleFlightKey(),
+                            retryingAsync(prepared.getOptions(), true, isIdempotent(prepared),
+                                          attempt -> sendAsync(() -> send(prepared, attempt), () -> submitPreparedAsync(prepared, attempt))));
+    }
+
+    /**
+     * Sends the request again while the retry policy allows it, waiting the backoff on the calling thread.
+     * A request whose body can't be read twice is sent once. The deadline covers all the attempts: each one is sent
+     * with the time left, and there's no retry once the backoff would take it past the deadline.
+     */
+    private Supplier<WellRestedResponse> retrying(RequestOptions options, boolean repeatable, boolean idempotent,
+                                                  Function<RequestOptions, WellRestedResponse> send) {
+        if (retryPolicy == null || !repeatable) {
+            return () -> send.apply(options);
+        }
+        return () -> {
+            retryBudget.deposit();
+            long expiresAt = expiresAt(options);
+            WellRestedResponse response = send.apply(options);
+            for (int retry = 1; retry < retryPolicy.getMaxAttempts(); retry++) {
+                long backoff = retryPolicy.backoff(retry);
+                if (timeLeft(expiresAt) <= backoff || !shouldRetry(response, idempotent)) {
+                    break;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return response;
+                }
+                RequestOptions attempt = attemptOptions(options, expiresAt);
+                if (attempt == null) {
+                    break;
+                }
+                response = send.apply(attempt);
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Sends the request again while the retry policy allows it. The backoff is waited on the shared timer and the retry is
+     * sent from the async response executor. Cancelling the returned future cancels the current attempt and the retries.
+     * The deadline covers all the attempts like in {@link #retrying}.
+     */
+    private Supplier<CompletableFuture<WellRestedResponse>> retryingAsync(RequestOptions options, boolean repeatable, boolean idempotent,
+                                                                          Function<RequestOptions, CompletableFuture<WellRestedResponse>> sendAsync) {
+        if (retryPolicy == null || !repeatable) {
+            return () -> sendAsync.apply(options);
+        }
+        return () -> {
+            retryBudget.deposit();
+            CompletableFuture<WellRestedResponse> result = new CompletableFuture<>();
+            attemptAsync(sendAsync, options, expiresAt(options), idempotent, 1, options, result);
+            return result;
+        };
+    }
+
+    private void attemptAsync(Function<RequestOptions, CompletableFuture<WellRestedResponse>> sendAsync, RequestOptions options, long expiresAt,
+                              boolean idempotent, int attempt, RequestOptions attemptOptions, CompletableFuture<WellRestedResponse> result) {
+        CompletableFuture<WellRestedResponse> current;
+        try {
+            current = sendAsync.apply(attemptOptions);
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+            return;
+        }
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                current.cancel(true);
+            }
+        });
+        current.whenComplete((response, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            long backoff = retryPolicy.backoff(attempt);
+            if (attempt < retryPolicy.getMaxAttempts() && !result.isDone() && timeLeft(expiresAt) > backoff && shouldRetry(response, idempotent)) {
+                Timers.schedule(() -> asyncResponseExecutor.execute(() -> {
+                    RequestOptions next = attemptOptions(options, expiresAt);
+                    if (next == null) {
+                        result.complete(response);
+                    } else if (!result.isDone()) {
+                        attemptAsync(sendAsync, options, expiresAt, idempotent, attempt + 1, next, result);
+                    }
+                }), backoff);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    /**
+     * When the deadline of a request with retries expires, in nanos of {@link System#nanoTime()}, 0 without a deadline
+     */
+    private long expiresAt(RequestOptions options) {
+        long deadline = deadline(options);
+        return deadline > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline) : 0;
+    }
+
+    private static long timeLeft(long expiresAt) {
+        return expiresAt != 0 ? TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    /**
+     * The options of a retry, with the time left before the deadline as its own deadline. Null if the deadline expired.
+     */
+    private static RequestOptions attemptOptions(RequestOptions options, long expiresAt) {
+        if (expiresAt == 0) {
+            return options;
+        }
+        long timeLeft = timeLeft(expiresAt);
+        return timeLeft > 0 ? options.withDeadline((int) timeLeft) : null;
+    }
+
+    private boolean shouldRetry(WellRestedResponse response, boolean idempotent) {
+        if (!retryPolicy.isRetryable(response, idempotent) || closed.get()) {
+            return false;
+        }
+        if (!retryBudget.tryWithdraw()) {
+            log.warn("Retry budget exhausted, not retrying the request to: {}", uri);
+            return false;
+        }
+        log.debug("Retrying the request to: {}, status code: {}", uri, response.getStatusCode());
+        return true;
+    }
+
+    private static boolean isRepeatable(HttpEntity httpEntity) {
+        return httpEntity == null || httpEntity.isRepeatable();
+    }
+
+    private boolean isIdempotent(Method method, List<Header> headers) {
+        return method.isIdempotent() || hasIdempotencyKey(headers) || hasIdempotencyKey(globalHeaders.get());
+    }
+
+    private static boolean isIdempotent(PreparedRequest prepared) {
+        return prepared.getMethod().isIdempotent() || hasIdempotencyKey(Arrays.asList(prepared.getHeaders()));
+    }
+
+    private static boolean hasIdempotencyKey(List<Header> headers) {
+        return headers != null && headers.stream().anyMatch(header -> IDEMPOTENCY_KEY.equalsIgnoreCase(header.getName()));
+    }
+
+    private List<Object> singleFlightKey(Method method, List<Header> headers, List<Header> globalHeaders, RequestOptions options) {
+        return singleFlight != null && method == Method.GET ? singleFlight.key(method, uri, credentials, tokens, options, headers, globalHeaders) : null;
+    }
+
+    private WellRestedResponse execute(List<Object> singleFlightKey, RequestOptions options, Supplier<WellRestedResponse> send) {
+        startRequest();
+        try {
+            return singleFlightKey != null ? executeSingleFlight(singleFlightKey, options, send) : send.get();
+        } finally {
+            endRequest();
+        }
+    }
+
+    /**
+     * Sends the request or waits for the identical one in flight, up to the deadline of the request
+     */
+    private WellRestedResponse executeSingleFlight(List<Object> singleFlightKey, RequestOptions options, Supplier<WellRestedResponse> send) {
+        try {
+            return singleFlight.execute(singleFlightKey, deadline(options), send);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+        } catch (TimeoutException ex) {
+            return buildDeadlineResponse();
+        }
+    }
+
+    private CompletableFuture<WellRestedResponse> executeAsync(List<Object> singleFlightKey, Supplier<CompletableFuture<WellRestedResponse>> sendAsync) {
+        startRequest();
+        CompletableFuture<WellRestedResponse> future;
+        try {
+            future = singleFlightKey != null ? singleFlight.executeAsync(singleFlightKey, sendAsync) : sendAsync.get();
+        } catch (RuntimeException ex) {
+            endRequest();
+            throw ex;
+        }
+        future.whenComplete((response, ex) -> endRequest());
+        return future;
+    }
+
+    private WellRestedResponse send(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        if (http2 || isPipelined(method)) {
+            return await(submitRequestAsync(method, httpEntity, headers, options));
+        }
+        return submitDirect(method, httpEntity, headers, options);
+    }
+
+    private WellRestedResponse send(PreparedRequest prepared, RequestOptions options) {
+        if (http2 || isPipelined(prepared.getMethod())) {
+            return await(submitPreparedAsync(prepared, options));
+        }
+        return submitPrepared(prepared, options);
+    }
+
+    /**
+     * Picks how an async request is sent: the blocking request on a virtual thread or executor, or an exchange of the async client
+     */
+    private CompletableFuture<WellRestedResponse> sendAsync(Supplier<WellRestedResponse> send, Supplier<CompletableFuture<WellRestedResponse>> submitAsync) {
+        if (virtualThreadExecutor != null) {
+            return sendOn(virtualThreadExecutor, send);
+        }
+        if (classicTransportOnly) {
+            return sendOn(asyncResponseExecutor, send);
+        }
+        return submitAsync.get();
+    }
+
+    /**
+     * Runs the blocking request on the given executor. Cancelling the returned future interrupts the thread running it,
+     * which aborts the request on virtual threads and unix domain sockets.
+     */
+    private CompletableFuture<WellRestedResponse> sendOn(java.util.concurrent.Executor executor, Supplier<WellRestedResponse> send) {
+        CompletableFuture<WellRestedResponse> future = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                future.complete(send.get());
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }, null);
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        executor.execute(task);
+        return future;
+    }
+
+    /**
+     * Waits for the response of an async exchange, cancelling it if the calling thread is interrupted
+     */
+    private WellRestedResponse await(CompletableFuture<WellRestedResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+        } catch (ExecutionException ex) {
+            return buildFailedResponse(uri, ex.getCause());
+        }
+    }
+
     public WellRestedResponse submitRequest(Request request, HttpEntity httpEntity, List<Header> headers) {
+        if (Thread.currentThread().isInterrupted()) {
+            return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+        }
         try {
             if (httpEntity != null) {
                 request.body(httpEntity);
@@ -311,8 +1142,9 @@ public class WellRestedRequest {
             if (headers != null && !headers.isEmpty()) {
                 headers.forEach(request::addHeader);
             }
-            if (this.globalHeaders != null && !this.globalHeaders.isEmpty()) {
-                this.globalHeaders.forEach(request::addHeader);
+            this.globalHeaders.get().forEach(request::addHeader);
+            if (tokens != null && !hasAuthorization(headers) && !hasAuthorization(this.globalHeaders.get())) {
+                request.addHeader(tokens.authorization());
             }
             if (this.proxy != null) {
                 request.viaProxy(proxy);
@@ -326,27 +1158,488 @@ public class WellRestedRequest {
                     executor.clearCookies().clearAuth();
                 }
 
-                HttpHost host = new HttpHost(uri.getScheme(), uri.getHost(), uri.getPort());
-                executor.auth(host, credentials);
-                executor.authPreemptive(host);
+                executor.use(credentialsProvider);
+                executor.authPreemptive(target);
             }
             httpResponse = (ClassicHttpResponse) executor.execute(request).returnResponse();
             return WellRestedUtil.buildWellRestedResponse(httpResponse, uri.toString(), jsonMapper);
-        } catch (ConnectTimeoutException cte) {
-            log.error("Connection timeout for request: {}", request.toString(), cte);
+        } catch (IOException ex) {
+            if (Thread.currentThread().isInterrupted()) {
+                // a virtual thread interrupted while blocked on the socket closes it
+                log.warn("Request cancelled by thread interruption: {}", request);
+                return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+            }
+            return buildFailedResponse(request, ex);
+        }
+    }
+
+    /**
+     * Submits the request using the async client without blocking the calling thread.
+     * The returned future completes with the same {@link WellRestedResponse} flags {@link #submitRequest} uses on timeouts and errors.
+     * The response is built on the configured async response executor so decoding doesn't happen on the I/O threads.
+     * Cancelling the future cancels the underlying exchange.
+     */
+    public CompletableFuture<WellRestedResponse> submitRequestAsync(Method method, HttpEntity httpEntity, List<Header> headers) {
+        return submitRequestAsync(method, httpEntity, headers, RequestOptions.DEFAULT);
+    }
+
+    private CompletableFuture<WellRestedResponse> submitRequestAsync(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        CompletableFuture<WellRestedResponse> future = new CompletableFuture<>();
+        SimpleHttpRequest request = SimpleHttpRequest.create(method, uri);
+        try {
+            if (httpEntity != null) {
+                ContentType contentType = httpEntity.getContentType() != null ? ContentType.parse(httpEntity.getContentType()) : null;
+                request.setBody(WellRestedUtil.toByteArray(httpEntity), contentType);
+            }
+        } catch (IOException ex) {
+            future.complete(buildFailedResponse(request, ex));
+            return future;
+        }
+        if (headers != null && !headers.isEmpty()) {
+            headers.forEach(request::addHeader);
+        }
+        this.globalHeaders.get().forEach(request::addHeader);
+        return submitExchange(method, request, options);
+    }
+
+    private CompletableFuture<WellRestedResponse> submitPreparedAsync(PreparedRequest prepared, RequestOptions options) {
+        SimpleHttpRequest request = SimpleHttpRequest.create(prepared.getMethod(), uri);
+        request.setHeaders(prepared.getHeaders());
+        if (prepared.getBody() != null) {
+            request.setBody(prepared.getBody(), prepared.getContentType());
+        }
+        return submitExchange(prepared.getMethod(), request, options);
+    }
+
+    /**
+     * Sends the request once it has its token: when the token manager has to fetch one, the exchange starts from the
+     * completion of the refresh instead of blocking the calling thread
+     */
+    private CompletableFuture<WellRestedResponse> submitExchange(Method method, SimpleHttpRequest request, RequestOptions options) {
+        if (tokens == null || request.containsHeader(HttpHeaders.AUTHORIZATION)) {
+            return submitAuthorized(method, request, options);
+        }
+        CompletableFuture<Header> authorization = tokens.authorizationAsync();
+        if (authorization.isDone() && !authorization.isCompletedExceptionally()) {
+            request.addHeader(authorization.join());
+            return submitAuthorized(method, request, options);
+        }
+
+        CompletableFuture<WellRestedResponse> future = new CompletableFuture<>();
+        authorization.whenComplete((header, ex) -> {
+            if (future.isDone()) {
+                // cancelled while waiting for the token
+                return;
+            }
+            if (ex != null) {
+                future.complete(buildFailedResponse(request, ex));
+                return;
+            }
+            request.addHeader(header);
+            CompletableFuture<WellRestedResponse> exchange = submitAuthorized(method, request, options);
+            future.whenComplete((response, exchangeEx) -> {
+                if (future.isCancelled()) {
+                    exchange.cancel(true);
+                }
+            });
+            exchange.whenComplete((response, exchangeEx) -> {
+                if (exchangeEx != null) {
+                    future.completeExceptionally(exchangeEx);
+                } else {
+                    future.complete(response);
+                }
+            });
+        });
+        return future;
+    }
+
+    private CompletableFuture<WellRestedResponse> submitAuthorized(Method method, SimpleHttpRequest request, RequestOptions options) {
+        if (loadShedder != null) {
+            if (!loadShedder.tryAcquire()) {
+                return CompletableFuture.completedFuture(buildRejectedResponse(request));
+            }
+            CompletableFuture<WellRestedResponse> future = submitAdmitted(method, request, options);
+            future.whenComplete((response, ex) -> loadShedder.release());
+            return future;
+        }
+        return submitAdmitted(method, request, options);
+    }
+
+    private CompletableFuture<WellRestedResponse> submitAdmitted(Method method, SimpleHttpRequest request, RequestOptions options) {
+        long deadline = deadline(options);
+        if (isPipelined(method)) {
+            return submitPipelined(request, options, deadline);
+        }
+
+        CompletableFuture<WellRestedResponse> future = new CompletableFuture<>();
+        RequestConfig config = requestConfig(options, deadline);
+        Runnable abort = leaseScheduler != null && !http2
+                         ? startScheduled(request, config, options.getTrafficClass(), future)
+                         : startExchange(request, config, future);
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                abort.run();
+            }
+        });
+        return track(withDeadline(future, abort, deadline));
+    }
+
+    /**
+     * Starts the exchange which completes the future, the returned task aborts it
+     */
+    private Runnable startExchange(SimpleHttpRequest request, RequestConfig config, CompletableFuture<WellRestedResponse> future) {
+        HttpClientContext context = buildContext(config);
+        ExchangeCancellation cancellation = ExchangeCancellation.attach(context);
+        Future<SimpleHttpResponse> exchange = asyncClient.get().execute(request, context, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse httpResponse) {
+                asyncResponseExecutor.execute(() -> future.complete(WellRestedUtil.buildWellRestedResponse(httpResponse, uri.toString(), jsonMapper)));
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.complete(buildFailedResponse(request, ex));
+            }
+
+            @Override
+            public void cancelled() {
+                future.complete(WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper));
+            }
+        });
+        return () -> {
+            exchange.cancel(true);
+            cancellation.cancel();
+        };
+    }
+
+    /**
+     * Starts the exchange once the lease scheduler gives the request a connection, or completes the future with the
+     * connection request timeout response if it waits longer than the connection request timeout
+     */
+    private Runnable startScheduled(SimpleHttpRequest request, RequestConfig config, TrafficClass trafficClass, CompletableFuture<WellRestedResponse> future) {
+        CompletableFuture<Void> permit = leaseScheduler.acquire(trafficClass);
+        AtomicReference<Runnable> exchange = new AtomicReference<>();
+        Timeout timeout = config.getConnectionRequestTimeout();
+        ScheduledFuture<?> timer = timeout == null || timeout.isDisabled() ? null : Timers.schedule(() -> {
+            if (permit.cancel(false)) {
+                future.complete(buildFailedResponse(request, new ConnectionRequestTimeoutException("Timeout waiting for a pooled connection")));
+            }
+        }, timeout.toMilliseconds());
+        permit.thenRun(() -> {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            future.whenComplete((response, ex) -> leaseScheduler.release(trafficClass));
+            if (!future.isDone()) {
+                exchange.set(startExchange(request, config, future));
+            }
+        });
+        return () -> {
+            permit.cancel(false);
+            Runnable abort = exchange.get();
+            if (abort != null) {
+                abort.run();
+            }
+        };
+    }
+
+    private boolean isPipelined(Method method) {
+        return pipeliningRequester != null && method == Method.GET && proxy == null && credentials == null;
+    }
+
+    private CompletableFuture<WellRestedResponse> submitPipelined(SimpleHttpRequest request, RequestOptions options, long deadline) {
+        Timeout connectTimeout = options.getConnectionTimeout() != null ? options.getConnectionTimeout() : timeoutOrDefault(connectionTimeout);
+        CompletableFuture<SimpleHttpResponse> exchange = pipeliningRequester.execute(ConnectionPoolSettings.toHttpHost(uri), request, capped(connectTimeout, deadline));
+        CompletableFuture<WellRestedResponse> future = exchange.handleAsync((httpResponse, ex) -> {
+            if (ex instanceof CancellationException) {
+                return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+            }
+            if (ex != null) {
+                return buildFailedResponse(request, ex instanceof CompletionException ? ex.getCause() : ex);
+            }
+            return WellRestedUtil.buildWellRestedResponse(httpResponse, uri.toString(), jsonMapper);
+        }, asyncResponseExecutor);
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return track(withDeadline(future, () -> exchange.cancel(true), pipelinedLimit(options, deadline)));
+    }
+
+    /**
+     * The pipelined requests share a connection, so a response timeout override can't change its socket timeout.
+     * It limits the wait for the response of the exchange instead, like a deadline when it's the shorter one.
+     */
+    private static long pipelinedLimit(RequestOptions options, long deadline) {
+        Timeout responseTimeout = options.getResponseTimeout();
+        if (responseTimeout == null || responseTimeout.isDisabled() || deadline > 0 && deadline <= responseTimeout.toMilliseconds()) {
+            return deadline;
+        }
+        return responseTimeout.toMilliseconds();
+    }
+
+    /**
+     * Completes the future with the deadline response and aborts the exchange when the deadline expires first
+     */
+    private CompletableFuture<WellRestedResponse> withDeadline(CompletableFuture<WellRestedResponse> future, Runnable abort, long deadline) {
+        if (deadline <= 0) {
+            return future;
+        }
+        ScheduledFuture<?> timer = Timers.schedule(() -> {
+            if (future.complete(buildDeadlineResponse())) {
+                abort.run();
+            }
+        }, deadline);
+        future.whenComplete((response, ex) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Keeps the exchange until it completes, so {@link #close(int)} can complete it if the client is closed under it
+     */
+    private CompletableFuture<WellRestedResponse> track(CompletableFuture<WellRestedResponse> exchange) {
+        exchanges.add(exchange);
+        exchange.whenComplete((response, ex) -> exchanges.remove(exchange));
+        return exchange;
+    }
+
+    /**
+     * Sends the request straight to the classic client, without the layers of the fluent API {@link #submitRequest} goes through
+     */
+    private WellRestedResponse submitDirect(Method method, HttpEntity httpEntity, List<Header> headers, RequestOptions options) {
+        HttpUriRequestBase request = new HttpUriRequestBase(method.name(), uri);
+        if (headers != null) {
+            for (Header header : headers) {
+                request.addHeader(header);
+            }
+        }
+        for (Header header : globalHeaders.get()) {
+            request.addHeader(header);
+        }
+        request.setEntity(httpEntity);
+        return submitClassic(request, options);
+    }
+
+    private WellRestedResponse submitPrepared(PreparedRequest prepared, RequestOptions options) {
+        HttpUriRequestBase request = new HttpUriRequestBase(prepared.getMethod().name(), uri);
+        request.setHeaders(prepared.getHeaders());
+        request.setEntity(prepared.getEntity());
+        return submitClassic(request, options);
+    }
+
+    /**
+     * Sends the request with the classic client. When a deadline is set the shared timer aborts the request if it's still running,
+     * which fails the blocked read or wait for a connection.
+     */
+    private WellRestedResponse submitClassic(HttpUriRequestBase request, RequestOptions options) {
+        if (Thread.currentThread().isInterrupted()) {
+            return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+        }
+        if (loadShedder != null && !loadShedder.tryAcquire()) {
+            return buildRejectedResponse(request);
+        }
+        long deadline = deadline(options);
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> timer = deadline > 0 ? Timers.schedule(() -> {
+            expired.set(true);
+            request.cancel();
+        }, deadline) : null;
+        boolean permitted = false;
+        try {
+            addAuthorization(request);
+            RequestConfig config = requestConfig(options, deadline);
+            if (leaseScheduler != null) {
+                awaitPermit(leaseScheduler.acquire(options.getTrafficClass()), config.getConnectionRequestTimeout());
+                permitted = true;
+            }
+            return classicClient().execute(target, request, buildContext(config),
+                                           httpResponse -> WellRestedUtil.buildWellRestedResponse(httpResponse, uri.toString(), jsonMapper));
+        } catch (IOException | CancellationException ex) {
+            if (expired.get() && !isTimeout(ex)) {
+                return buildDeadlineResponse();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                // a virtual thread interrupted while blocked on the socket closes it
+                log.warn("Request cancelled by thread interruption: {}", request);
+                return WellRestedUtil.buildCancelledWellRestedResponse(uri.toString(), jsonMapper);
+            }
+            return buildFailedResponse(request, ex);
+        } finally {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (permitted) {
+                leaseScheduler.release(options.getTrafficClass());
+            }
+            if (loadShedder != null) {
+                loadShedder.release();
+            }
+        }
+    }
+
+    /**
+     * Waits until the lease scheduler gives the request a connection
+     *
+     * @throws ConnectionRequestTimeoutException if it waits longer than the connection request timeout
+     */
+    private static void awaitPermit(CompletableFuture<Void> permit, Timeout timeout) throws IOException {
+        try {
+            if (timeout == null || timeout.isDisabled()) {
+                permit.get();
+            } else {
+                permit.get(timeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (permit.cancel(false)) {
+                throw new InterruptedIOException("Interrupted while waiting for a pooled connection");
+            }
+        } catch (TimeoutException ex) {
+            if (permit.cancel(false)) {
+                throw new ConnectionRequestTimeoutException("Timeout waiting for a pooled connection");
+            }
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    /**
+     * Adds the bearer token of the token provider, unless the request has its own Authorization header.
+     * Waits for the token if there's no valid one yet, see {@link TokenManager}.
+     */
+    private void addAuthorization(HttpRequest request) throws IOException {
+        if (tokens != null && !request.containsHeader(HttpHeaders.AUTHORIZATION)) {
+            request.addHeader(tokens.authorization());
+        }
+    }
+
+    private static boolean hasAuthorization(List<Header> headers) {
+        return headers != null && headers.stream().anyMatch(header -> HttpHeaders.AUTHORIZATION.equalsIgnoreCase(header.getName()));
+    }
+
+    /**
+     * The same client {@link #getExecutor()} picks for the fluent API
+     */
+    private CloseableHttpClient classicClient() {
+        if (client != null) {
+            return client;
+        }
+        return credentials != null && disableCookiesForAuthRequests ? INTERNAL_STATELESS_HTTP_CLIENT : DEFAULT_HTTP_CLIENT;
+    }
+
+    /**
+     * A context isn't thread-safe so every request gets a new one, but the request config and credentials it holds are built once.
+     * Username and password credentials are sent preemptively with the Authorization value encoded by the {@link PreemptiveAuthCache}.
+     */
+    private HttpClientContext buildContext(RequestConfig requestConfig) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(requestConfig);
+
+        if (credentials != null) {
+            if (disableCookiesForAuthRequests) {
+                context.setCookieStore(new BasicCookieStore());
+            }
+            context.setCredentialsProvider(credentialsProvider);
+            context.setAuthCache(authCache);
+        }
+        if (retryPolicy != null) {
+            ClientRetryStrategy.disable(context);
+        }
+        return context;
+    }
+
+    private RequestConfig buildRequestConfig() {
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setResponseTimeout(timeoutOrDefault(responseTimeout))
+                .setConnectTimeout(timeoutOrDefault(connectionTimeout));
+        if (this.connectionRequestTimeout != null) {
+            requestConfig.setConnectionRequestTimeout(connectionRequestTimeout);
+        }
+        if (this.proxy != null) {
+            requestConfig.setProxy(proxy);
+        }
+        return requestConfig.build();
+    }
+
+    /**
+     * The shared request config, unless the request overrides a timeout or has a deadline the timeouts are capped to
+     */
+    private RequestConfig requestConfig(RequestOptions options, long deadline) {
+        if (!options.hasTimeouts() && deadline <= 0) {
+            return requestConfig;
+        }
+        Timeout connect = options.getConnectionTimeout() != null ? options.getConnectionTimeout() : requestConfig.getConnectTimeout();
+        Timeout response = options.getResponseTimeout() != null ? options.getResponseTimeout() : requestConfig.getResponseTimeout();
+        Timeout lease = options.getConnectionRequestTimeout() != null ? options.getConnectionRequestTimeout() : requestConfig.getConnectionRequestTimeout();
+        return RequestConfig.copy(requestConfig)
+                            .setConnectTimeout(capped(connect, deadline))
+                            .setResponseTimeout(capped(response, deadline))
+                            .setConnectionRequestTimeout(capped(lease, deadline))
+                            .build();
+    }
+
+    private long deadline(RequestOptions options) {
+        Integer requestDeadline = options.getDeadline() != null ? options.getDeadline() : this.deadline;
+        return requestDeadline != null ? requestDeadline : 0;
+    }
+
+    private static Timeout capped(Timeout timeout, long deadline) {
+        if (deadline <= 0 || timeout != null && !timeout.isDisabled() && timeout.toMilliseconds() <= deadline) {
+            return timeout;
+        }
+        return Timeout.ofMilliseconds(deadline);
+    }
+
+    private static boolean isTimeout(Throwable ex) {
+        return ex instanceof ConnectTimeoutException || ex instanceof ConnectionRequestTimeoutException
+               || ex instanceof DeadlineTimeoutException || ex instanceof SocketTimeoutException;
+    }
+
+    private WellRestedResponse buildRejectedResponse(Object request) {
+        log.warn("Too many requests waiting for a connection, rejected request: {}", request);
+        return WellRestedUtil.buildConnectionRequestRejectedWellRestedResponse(uri.toString(), jsonMapper);
+    }
+
+    private WellRestedResponse buildDeadlineResponse() {
+        log.warn("Deadline expired for the request to: {}", uri);
+        return WellRestedUtil.buildSocketTimeoutWellRestedResponse(uri.toString(), jsonMapper);
+    }
+
+    private BasicCredentialsProvider buildCredentialsProvider() {
+        if (credentials == null) {
+            return null;
+        }
+        // the auth cache is keyed by the target host, which has the default port filled in
+        BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        credentialsProvider.setCredentials(new AuthScope(target), credentials);
+        return credentialsProvider;
+    }
+
+    /**
+     * Maps the exception of a failed request to the matching timeout or error WellRestedResponse
+     */
+    private WellRestedResponse buildFailedResponse(Object request, Throwable ex) {
+        if (ex instanceof ConnectTimeoutException) {
+            log.error("Connection timeout for request: {}", request, ex);
             return WellRestedUtil.buildConnectionTimeoutWellRestedResponse(uri.toString(), jsonMapper);
-        } catch (ConnectionRequestTimeoutException ex) {
-            log.error("Connection Request timeout for request: {}", request.toString(), ex);
+        }
+        if (ex instanceof ConnectionRequestTimeoutException || ex instanceof DeadlineTimeoutException) {
+            log.error("Connection Request timeout for request: {}", request, ex);
             return WellRestedUtil.buildConnectionRequestTimeoutWellRestedResponse(uri.toString(), jsonMapper);
-        } catch (SocketTimeoutException ste) {
-            log.error("Socket timeout for request: {}", request.toString(), ste);
+        }
+        if (ex instanceof SocketTimeoutException) {
+            log.error("Socket timeout for request: {}", request, ex);
             return WellRestedUtil.buildSocketTimeoutWellRestedResponse(uri.toString(), jsonMapper);
-        } catch (IOException ex) {
-            log.error("Error occurred after executing the request to: {}", uri.toString(), ex);
         }
+        log.error("Error occurred after executing the request to: {}", uri.toString(), ex);
         return WellRestedUtil.buildErrorWellRestedResponse(uri.toString(), jsonMapper);
     }
 
+    private static Timeout timeoutOrDefault(Timeout timeout) {
+        return timeout != null ? timeout : Timeout.of(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
     private Executor getExecutor() {
         if (client != null) {
             return Executor.newInstance(client);
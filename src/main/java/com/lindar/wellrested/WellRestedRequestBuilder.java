@@ -2,34 +2,54 @@ package com.lindar.wellrested;
 
 import com.lindar.wellrested.json.JsonMapper;
 import com.lindar.wellrested.util.WellRestedUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.auth.Credentials;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.message.BasicHeader;
 
+import javax.net.ssl.SSLContext;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+@Getter(AccessLevel.PACKAGE)
 public class WellRestedRequestBuilder {
     private static final String CONTENT_TYPE_PARAM  = "Content-Type";
     private static final String AUTHORIZATION_PARAM = "Authorization";
 
-    private URI                 uri;
-    private Credentials         credentials;
-    private HttpHost            proxy;
-    private List<Header>        globalHeaders;
-    private boolean             disableCookiesForAuthRequests;
-    private Integer             connectionTimeout;
-    private Integer             responseTimeout;
-    private JsonMapper          jsonMapper;
-    private CloseableHttpClient httpClient;
+    private URI                      uri;
+    private Credentials              credentials;
+    private TokenProvider            tokenProvider;
+    private long                     tokenRefreshAhead;
+    private HttpHost                 proxy;
+    private List<Header>             globalHeaders;
+    private boolean                  disableCookiesForAuthRequests;
+    private Integer                  connectionTimeout;
+    private Integer                  responseTimeout;
+    private Integer                  connectionRequestTimeout;
+    private Integer                  deadline;
+    private JsonMapper               jsonMapper;
+    private CloseableHttpClient      httpClient;
+    private CloseableHttpAsyncClient asyncHttpClient;
+    private Executor                 asyncResponseExecutor;
+    private boolean                  virtualThreads;
+    private ConnectionPoolSettings   poolSettings;
+    private String[]                 singleFlightKeyHeaders;
+    private RetryPolicy              retryPolicy;
+    private LoopbackHandler          loopbackHandler;
 
     public WellRestedRequestBuilder() {
     }
@@ -54,6 +74,29 @@ public class WellRestedRequestBuilder {
         return this;
     }
 
+    /**
+     * Sends a bearer token from the given provider in the {@code Authorization} header of every request, eg: an OAuth2 access token
+     * (see {@link ClientCredentialsTokenProvider}). Use it instead of setting the header with {@link #addGlobalHeader(String, String)}.
+     * <p>
+     * The token is cached and refreshed in the background 30 seconds before it expires (half way through its lifetime for short-lived tokens),
+     * so the requests don't wait for it. Only one refresh runs at a time: the requests that need a token while there's none
+     * wait for the running refresh. A request that can't get a token gets an error response without being sent.
+     * </p>
+     * An {@code Authorization} header set on the request itself is sent instead of the token.
+     */
+    public WellRestedRequestBuilder tokenProvider(TokenProvider tokenProvider) {
+        return tokenProvider(tokenProvider, (int) TokenManager.DEFAULT_REFRESH_AHEAD);
+    }
+
+    /**
+     * See {@link #tokenProvider(TokenProvider)}, refreshing the token {@code refreshAhead} milliseconds before it expires
+     */
+    public WellRestedRequestBuilder tokenProvider(TokenProvider tokenProvider, int refreshAhead) {
+        this.tokenProvider = tokenProvider;
+        this.tokenRefreshAhead = refreshAhead;
+        return this;
+    }
+
     public WellRestedRequestBuilder proxy(HttpHost proxy) {
         this.proxy = proxy;
         return this;
@@ -173,6 +216,32 @@ public class WellRestedRequestBuilder {
         return this;
     }
 
+    /**
+     * Defines the timeout in milliseconds to wait for a connection from the connection pool.
+     * When it expires the response is flagged as {@link com.lindar.wellrested.vo.WellRestedResponse#isConnectionRequestTimeout()}.
+     * <p>
+     * Default: {@code 3 minutes}
+     * </p>
+     */
+    public WellRestedRequestBuilder connectionRequestTimeout(Integer connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        return this;
+    }
+
+    /**
+     * Limits the whole request, from waiting for a connection to reading the last byte of the response, to this many milliseconds,
+     * so a slow server can't hold the caller longer than its own time budget. The other timeouts are capped to the deadline.
+     * <p>
+     * When the deadline expires the request is aborted by a shared timer and the response is flagged as
+     * {@link com.lindar.wellrested.vo.WellRestedResponse#isSocketTimeout()}, unless one of the other timeouts expired first.
+     * </p>
+     * Default: none
+     */
+    public WellRestedRequestBuilder deadline(Integer deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     /**
      * Sets both the response timeout and connection timeout to infinite (timeout value of zero)
      * See the different properties for more details
@@ -203,9 +272,381 @@ public class WellRestedRequestBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of connections kept in the pool, across all routes.
+     * <p>
+     * Setting any of the connection pool or socket options makes the WellRestedRequest create and own a dedicated
+     * connection pool instead of using the shared default client. These options are ignored when a
+     * {@link #customHttpClient(CloseableHttpClient)} is provided.
+     * </p>
+     */
+    public WellRestedRequestBuilder maxConnections(int maxConnections) {
+        poolSettings().setMaxConnections(maxConnections);
+        return this;
+    }
+
+    /**
+     * Sets the default maximum number of connections per route (host). See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        poolSettings().setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+        return this;
+    }
+
+    /**
+     * Overrides the maximum number of connections for a specific host, eg: {@code https://api.example.com}.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder maxConnectionsPerHost(String url, int maxConnections) {
+        poolSettings().addMaxConnectionsPerHost(url, maxConnections);
+        return this;
+    }
+
+    /**
+     * Limits the requests waiting for a pooled connection to the host of the URL. When all the connections of the route are
+     * in use and this many requests are already waiting, further requests aren't queued: they fail straight away with a
+     * response flagged {@code isConnectionRequestRejected}, so an overloaded backend doesn't pile up threads waiting for
+     * {@link #connectionRequestTimeout(Integer)}. A limit of 0 rejects every request that would wait.
+     * <br/>
+     * The requests sent by this WellRestedRequest and the ones created from it with a path template count towards the limit.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder maxPendingRequestsPerRoute(int maxPendingRequests) {
+        poolSettings().setMaxPendingRequestsPerRoute(maxPendingRequests);
+        return this;
+    }
+
+    /**
+     * Hands out the pooled connections to the host of the URL by the {@link TrafficClass} of the requests instead of in arrival order:
+     * when all the connections are in use, the next free one goes to the waiting request of the highest priority.
+     * <pre>
+     * request.get().trafficClass(TrafficClass.INTERACTIVE).submit();
+     * </pre>
+     * Lower priority requests wait as long as higher priority ones keep the connections busy, reserve them connections with
+     * {@link #reserveConnections(TrafficClass, int)} so they keep going. The HTTP/2 and pipelined requests share their connection
+     * and aren't scheduled. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder prioritizeLeases() {
+        poolSettings().setLeasePriority(true);
+        return this;
+    }
+
+    /**
+     * Guarantees a minimum number of the connections to the host of the URL to the requests of a traffic class: the other classes
+     * only get these connections while the class doesn't need them. It enables {@link #prioritizeLeases()}.
+     * <pre>
+     * WellRestedRequest.builder().url(url).maxConnectionsPerRoute(20)
+     *                  .reserveConnections(TrafficClass.INTERACTIVE, 10)
+     *                  .reserveConnections(TrafficClass.BATCH, 2)
+     *                  .build();
+     * </pre>
+     *
+     * @throws IllegalArgumentException on build if the reservations exceed the connections of the route
+     */
+    public WellRestedRequestBuilder reserveConnections(TrafficClass trafficClass, int connections) {
+        poolSettings().reserveConnections(trafficClass, connections);
+        return this;
+    }
+
+    /**
+     * Defines the total time to live in milliseconds of a pooled connection, after which it won't be reused anymore.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder connectionTimeToLive(Integer connectionTimeToLive) {
+        poolSettings().setConnectionTimeToLive(connectionTimeToLive);
+        return this;
+    }
+
+    /**
+     * Defines the period of inactivity in milliseconds after which a pooled connection is validated before being reused.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder validateAfterInactivity(Integer validateAfterInactivity) {
+        poolSettings().setValidateAfterInactivity(validateAfterInactivity);
+        return this;
+    }
+
+    /**
+     * Closes the pooled connections that have been idle for longer than the given time in milliseconds, and the expired ones,
+     * from a background thread, so requests don't pick up connections the server has already dropped.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder evictIdleConnections(int maxIdleTime) {
+        poolSettings().setMaxIdleTime(maxIdleTime);
+        return this;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds a connection is kept alive between requests. A shorter {@code Keep-Alive: timeout}
+     * sent by the server is respected, the connection is then dropped a little before the server closes it. Default: 3 minutes.
+     * See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder keepAlive(int maxKeepAlive) {
+        poolSettings().setMaxKeepAlive(maxKeepAlive);
+        return this;
+    }
+
+    /**
+     * Enables or disables Nagle's algorithm (TCP_NODELAY) on the pooled connections. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tcpNoDelay(boolean tcpNoDelay) {
+        poolSettings().setTcpNoDelay(tcpNoDelay);
+        return this;
+    }
+
+    /**
+     * Enables or disables SO_KEEPALIVE on the pooled connections. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder soKeepAlive(boolean soKeepAlive) {
+        poolSettings().setSoKeepAlive(soKeepAlive);
+        return this;
+    }
+
+    /**
+     * Sets the socket send buffer size (SO_SNDBUF) in bytes. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder socketSendBufferSize(int socketSendBufferSize) {
+        poolSettings().setSocketSendBufferSize(socketSendBufferSize);
+        return this;
+    }
+
+    /**
+     * Sets the socket receive buffer size (SO_RCVBUF) in bytes. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder socketReceiveBufferSize(int socketReceiveBufferSize) {
+        poolSettings().setSocketReceiveBufferSize(socketReceiveBufferSize);
+        return this;
+    }
+
+    /**
+     * Sets the number of I/O dispatch threads of the async client used by {@link RequestResource#submitAsync()}.
+     * <p>
+     * Setting this (or any connection pool option) makes the WellRestedRequest create its own async client,
+     * otherwise a shared one is used. This is ignored when a {@link #customAsyncHttpClient(CloseableHttpAsyncClient)} is provided.
+     * </p>
+     */
+    public WellRestedRequestBuilder ioThreads(int ioThreads) {
+        poolSettings().setIoThreadCount(ioThreads);
+        return this;
+    }
+
+    /**
+     * Sends all requests, sync and async, through the HTTP/2 async client so that concurrent requests to the same host
+     * are multiplexed on a single connection. Plain {@code http} URIs use h2c with prior knowledge
+     * (the server must speak HTTP/2 without upgrade) and {@code https} URIs negotiate h2 using ALPN.
+     * <p>
+     * Socket options such as {@link #soKeepAlive(boolean)} and {@link #ioThreads(int)} apply to the HTTP/2 connections too.
+     * </p>
+     */
+    public WellRestedRequestBuilder http2() {
+        poolSettings().setHttp2(true);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams per HTTP/2 connection announced to the server. See {@link #http2()}
+     */
+    public WellRestedRequestBuilder http2MaxConcurrentStreams(int maxConcurrentStreams) {
+        poolSettings().setHttp2(true);
+        poolSettings().setHttp2MaxConcurrentStreams(maxConcurrentStreams);
+        return this;
+    }
+
+    /**
+     * Pipelines GET requests over a single HTTP/1.1 connection per host: a burst of concurrent GETs is written
+     * to the connection without waiting for each response and the server answers them in order.
+     * Only use this for backends known to support pipelining.
+     * <p>
+     * Other methods, as well as GET requests with credentials or a proxy, are sent through the regular clients.
+     * </p>
+     * <p>
+     * The pipelined requests share the socket timeout of their connection, the response timeout set on the builder.
+     * A per-request {@link RequestOptionsSupport#responseTimeout(int)} limits the wait for the response of that request instead,
+     * including the time it waits for the responses pipelined before it.
+     * </p>
+     */
+    public WellRestedRequestBuilder pipelining() {
+        poolSettings().setPipelining(true);
+        return this;
+    }
+
+    /**
+     * Caches the addresses of each host for the given time in milliseconds instead of resolving the host every time a pooled connection is opened.
+     * The records of hosts in use are refreshed in the background before they expire, concurrent lookups of a host share one call to the resolver,
+     * the last good record keeps being used while the resolver fails and the addresses of hosts with multiple records are returned in random order.
+     * At most 1024 hosts are cached. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder dnsCache(int timeToLive) {
+        poolSettings().setDnsCacheTimeToLive(timeToLive);
+        return this;
+    }
+
+    /**
+     * Sets the resolver used by the connection pools to look up the addresses of the hosts, eg: to point a host name to a test server.
+     * When {@link #dnsCache(int)} is set too, the results of this resolver are cached. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder dnsResolver(DnsResolver dnsResolver) {
+        poolSettings().setDnsResolver(dnsResolver);
+        return this;
+    }
+
+    /**
+     * Sets the TLS context of the https connections, eg: to trust a private certificate authority.
+     * The TLS session options below are applied to this context. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder sslContext(SSLContext sslContext) {
+        poolSettings().setSslContext(sslContext);
+        return this;
+    }
+
+    /**
+     * Creates the TLS context with the given security provider (eg: {@code Conscrypt}) instead of the default JSSE one.
+     * Conscrypt is used when it's on the classpath even if it isn't registered. When the provider isn't available the default one is used.
+     * Ignored when a {@link #sslContext(SSLContext)} is provided. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tlsProvider(String providerName) {
+        poolSettings().setTlsProvider(providerName);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of TLS sessions kept for resumption, so new connections to a known host skip the full handshake.
+     * A size of zero means no limit. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tlsSessionCacheSize(int sessionCacheSize) {
+        poolSettings().setTlsSessionCacheSize(sessionCacheSize);
+        return this;
+    }
+
+    /**
+     * Sets the time in seconds a TLS session can be resumed for. A timeout of zero means no limit. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tlsSessionTimeout(int sessionTimeout) {
+        poolSettings().setTlsSessionTimeout(sessionTimeout);
+        return this;
+    }
+
+    /**
+     * Restricts the TLS protocols of the https connections, eg: {@code "TLSv1.3"}. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tlsProtocols(String... protocols) {
+        poolSettings().setTlsProtocols(protocols);
+        return this;
+    }
+
+    /**
+     * Restricts the cipher suites of the https connections. See {@link #maxConnections(int)} for details.
+     */
+    public WellRestedRequestBuilder tlsCipherSuites(String... cipherSuites) {
+        poolSettings().setTlsCipherSuites(cipherSuites);
+        return this;
+    }
+
+    /**
+     * Use this method to provide your own async client for {@link RequestResource#submitAsync()}.
+     * The client is started if needed but it's up to you to close it.
+     */
+    public WellRestedRequestBuilder customAsyncHttpClient(CloseableHttpAsyncClient asyncHttpClient) {
+        this.asyncHttpClient = asyncHttpClient;
+        return this;
+    }
+
+    /**
+     * Use this method to set the executor that builds the {@link com.lindar.wellrested.vo.WellRestedResponse} of async requests,
+     * so decoding the response doesn't happen on the I/O threads. <br/>
+     * Default: {@link java.util.concurrent.ForkJoinPool#commonPool()}
+     */
+    public WellRestedRequestBuilder asyncResponseExecutor(Executor asyncResponseExecutor) {
+        this.asyncResponseExecutor = asyncResponseExecutor;
+        return this;
+    }
+
+    /**
+     * On Java 21 and newer, {@link RequestResource#submitAsync()} runs the blocking request on a new virtual thread instead of
+     * using the async client, so you don't need your own thread pools around {@link RequestResource#submit()}. <br/>
+     * On older versions of Java this option is ignored and the async client is used as usual. <br/>
+     * The connection pools of the library park a virtual thread waiting for a connection instead of pinning it to its carrier,
+     * a client set with {@link #customHttpClient(CloseableHttpClient)} is used as it is.
+     */
+    public WellRestedRequestBuilder virtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+
+    /**
+     * Sends the requests over the given unix domain socket (eg: of a local sidecar proxy) instead of a TCP connection.
+     * The {@code http://} URI is still used for the Host header and the path. Requires Java 16 or later.
+     * <p>
+     * Unix domain sockets are only supported by the classic client, so {@link RequestResource#submitAsync()} runs the
+     * request on the async response executor (or on a virtual thread, see {@link #virtualThreads()}) and the
+     * {@link #http2()} and {@link #pipelining()} options are ignored.
+     * </p>
+     */
+    public WellRestedRequestBuilder unixDomainSocket(Path socketPath) {
+        if (!UnixDomainSockets.isSupported()) {
+            throw new UnsupportedOperationException("Unix domain sockets require Java 16 or later");
+        }
+        poolSettings().setUnixDomainSocket(socketPath);
+        return this;
+    }
+
+    /**
+     * See {@link #unixDomainSocket(Path)}
+     */
+    public WellRestedRequestBuilder unixDomainSocket(String socketPath) {
+        return unixDomainSocket(Paths.get(socketPath));
+    }
+
+    /**
+     * Passes the requests to the given handler in the same JVM instead of sending them over the network.
+     * The requests still go through the classic client (headers, credentials, cookies) and the responses through the usual
+     * WellRestedResponse building, so tests and benchmarks can measure the cost of the client without network noise.
+     * <p>
+     * Overrides {@link #customHttpClient(CloseableHttpClient)} and the connection pool options. As with {@link #unixDomainSocket(Path)},
+     * {@link RequestResource#submitAsync()} runs the request on the async response executor and {@link #http2()} and {@link #pipelining()} are ignored.
+     * </p>
+     */
+    public WellRestedRequestBuilder loopback(LoopbackHandler loopbackHandler) {
+        this.loopbackHandler = loopbackHandler;
+        return this;
+    }
+
+    /**
+     * Collapses identical GET requests in flight at the same time, eg: when a hot cache key expires.
+     * The first caller sends the request and the concurrent duplicates wait for it and share its response.
+     * <p>
+     * Requests are identical when they are sent by this WellRestedRequest to the same URI with the same timeouts, deadline,
+     * traffic class and values for the given headers. List every header that changes the response (eg: {@code Authorization},
+     * {@code Accept}), the other headers are ignored.
+     * </p>
+     * Cancelling the future of {@link RequestResource#submitAsync()} only aborts the shared request once every caller waiting for it cancelled.
+     */
+    public WellRestedRequestBuilder singleFlight(String... keyHeaders) {
+        this.singleFlightKeyHeaders = keyHeaders;
+        return this;
+    }
+
+    /**
+     * Sends the failed requests again, see {@link RetryPolicy} for which ones are retried and how often:
+     * <pre>
+     * WellRestedRequest.builder().url(url).retryPolicy(RetryPolicy.defaults()).build();
+     * </pre>
+     * The retries of a request return the response of the last attempt. The timeouts apply to every attempt and the deadline to all of them together.
+     * Requests whose body can't be read twice, eg: a stream, are sent once. Default: no retries
+     */
+    public WellRestedRequestBuilder retryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    private ConnectionPoolSettings poolSettings() {
+        if (this.poolSettings == null) {
+            this.poolSettings = new ConnectionPoolSettings();
+        }
+        return this.poolSettings;
+    }
+
     public WellRestedRequest build() {
-        return new WellRestedRequest(this.uri, this.credentials, this.proxy,
-                                     this.globalHeaders, this.disableCookiesForAuthRequests,
-                                     this.connectionTimeout, this.responseTimeout, this.jsonMapper, this.httpClient);
+        return new WellRestedRequest(this);
     }
 }
\ No newline at end of file
@@ -5,24 +5,33 @@ import com.lindar.wellrested.vo.WellRestedResponse;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.hc.client5.http.async.methods.SimpleBody;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.HttpResponse;
-import org.apache.hc.core5.http.NameValuePair;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicHeader;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
 @UtilityClass
 public final class WellRestedUtil {
+    private static final Map<String, Charset> DEFAULT_CHARSETS = Collections.singletonMap(ContentType.APPLICATION_JSON.getMimeType(), StandardCharsets.UTF_8);
 
     public static WellRestedResponse buildWellRestedResponse(ClassicHttpResponse httpResponse, JsonMapper jsonMapper) {
         return buildWellRestedResponse(httpResponse, StringUtils.EMPTY, jsonMapper);
@@ -52,6 +61,41 @@ public final class WellRestedUtil {
         return buildErrorWellRestedResponse(url, jsonMapper);
     }
 
+    /**
+     * Builds the WellRestedResponse from a response buffered by the async client. The body is decoded the same way
+     * {@link EntityUtils#toString(HttpEntity)} does it for the classic client.
+     */
+    public static WellRestedResponse buildWellRestedResponse(SimpleHttpResponse httpResponse, String url, JsonMapper jsonMapper) {
+        WellRestedResponse wellRestedResponse = new WellRestedResponse(jsonMapper);
+        wellRestedResponse.setCurrentURI(url);
+
+        if (httpResponse.getHeaders() != null) {
+            wellRestedResponse.setResponseHeaders(createHeaderMap(httpResponse.getHeaders()));
+        }
+
+        SimpleBody body = httpResponse.getBody();
+        if (body != null) {
+            if (body.isText()) {
+                wellRestedResponse.setServerResponse(body.getBodyText());
+            } else {
+                wellRestedResponse.setServerResponse(new String(body.getBodyBytes(), getCharset(body.getContentType())));
+            }
+        }
+        wellRestedResponse.setStatusCode(httpResponse.getCode());
+        return wellRestedResponse;
+    }
+
+    /**
+     * Buffers the content of an entity so it can be sent with the async client
+     */
+    public static byte[] toByteArray(HttpEntity httpEntity) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(httpEntity.getContentLength() > 0
+                                                                       ? (int) httpEntity.getContentLength()
+                                                                       : 1024);
+        httpEntity.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
     public static WellRestedResponse buildErrorWellRestedResponse(String url, JsonMapper jsonMapper) {
         WellRestedResponse wellRestedResponse = new WellRestedResponse(jsonMapper);
         wellRestedResponse.setCurrentURI(url);
@@ -72,6 +116,24 @@ public final class WellRestedUtil {
         return buildTimeoutWellRestedResponse(url, false, false, true, jsonMapper);
     }
 
+    /**
+     * Builds the response of a request rejected without waiting for a connection because too many requests were already waiting
+     */
+    public static WellRestedResponse buildConnectionRequestRejectedWellRestedResponse(String url, JsonMapper jsonMapper) {
+        WellRestedResponse wellRestedResponse = buildTimeoutWellRestedResponse(url, false, false, false, jsonMapper);
+        wellRestedResponse.setConnectionRequestRejected(true);
+        return wellRestedResponse;
+    }
+
+    /**
+     * Builds the response of a request cancelled before it completed, eg: because the calling thread was interrupted
+     */
+    public static WellRestedResponse buildCancelledWellRestedResponse(String url, JsonMapper jsonMapper) {
+        WellRestedResponse wellRestedResponse = buildTimeoutWellRestedResponse(url, false, false, false, jsonMapper);
+        wellRestedResponse.setCancelled(true);
+        return wellRestedResponse;
+    }
+
     private static WellRestedResponse buildTimeoutWellRestedResponse(String url, boolean socketTimeout, boolean connectionTimeout, boolean connectionRequestTimeout, JsonMapper jsonMapper) {
         WellRestedResponse wellRestedResponse = new WellRestedResponse(jsonMapper);
         wellRestedResponse.setCurrentURI(url);
@@ -83,6 +145,23 @@ public final class WellRestedUtil {
         return wellRestedResponse;
     }
 
+    /**
+     * Copies the response for another caller, without the state of its mappers
+     */
+    public static WellRestedResponse copyWellRestedResponse(WellRestedResponse response, JsonMapper jsonMapper) {
+        WellRestedResponse copy = new WellRestedResponse(jsonMapper);
+        copy.setCurrentURI(response.getCurrentURI());
+        copy.setServerResponse(response.getServerResponse());
+        copy.setStatusCode(response.getStatusCode());
+        copy.setResponseHeaders(response.getResponseHeaders() != null ? new HashMap<>(response.getResponseHeaders()) : null);
+        copy.setSocketTimeout(response.isSocketTimeout());
+        copy.setConnectionTimeout(response.isConnectionTimeout());
+        copy.setConnectionRequestTimeout(response.isConnectionRequestTimeout());
+        copy.setConnectionRequestRejected(response.isConnectionRequestRejected());
+        copy.setCancelled(response.isCancelled());
+        return copy;
+    }
+
     public static void fillStatusCodeForResponse(WellRestedResponse response, HttpResponse httpResponse) {
         int responseStatusCode = httpResponse.getCode();
         if (responseStatusCode != 200) {
@@ -108,12 +187,26 @@ public final class WellRestedUtil {
                         .collect(Collectors.toList());
     }
 
+    /**
+     * The charset of the content type, else the default of its mime type like the classic client: UTF-8 for JSON, ISO-8859-1 otherwise
+     */
+    private Charset getCharset(ContentType contentType) {
+        if (contentType == null) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        Charset charset = contentType.getCharset();
+        if (charset == null) {
+            charset = DEFAULT_CHARSETS.get(contentType.getMimeType().toLowerCase(Locale.ROOT));
+        }
+        return charset != null ? charset : StandardCharsets.ISO_8859_1;
+    }
+
     private Map<String, String> createHeaderMap(Header[] headers) {
-        return Arrays.stream(headers)
-                     .collect(Collectors
-                                      .toMap(NameValuePair::getName, NameValuePair::getValue, (v1, v2) -> {
-                                          // duplicate key found, return second value
-                                          return v2;
-                                      }));
+        Map<String, String> headerMap = new HashMap<>(Math.max(16, headers.length * 4 / 3 + 1));
+        for (Header header : headers) {
+            // duplicate key found, keep the last value
+            headerMap.put(header.getName(), header.getValue());
+        }
+        return headerMap;
     }
 }
@@ -31,18 +31,25 @@ public class WellRestedResponse implements Serializable {
     private @Getter @Setter boolean             socketTimeout;
     private @Getter @Setter boolean             connectionTimeout;
     private @Getter @Setter boolean             connectionRequestTimeout;
+    private @Getter @Setter boolean             connectionRequestRejected;
+    private @Getter @Setter boolean             cancelled;
     private final           JsonMapper          jsonMapper;
 
     public WellRestedResponse(JsonMapper jsonMapper) {
         this.jsonMapper = jsonMapper;
     }
 
-    private JsonResponseMapper fromJson = new JsonResponseMapper();
+    // the mappers are only created when used, most responses are never mapped
+    @ToString.Exclude
+    private transient JsonResponseMapper fromJson;
 
     /**
      * Allows you to manage JSON responses and map them to Java objects
      */
     public JsonResponseMapper fromJson() {
+        if (this.fromJson == null) {
+            this.fromJson = new JsonResponseMapper();
+        }
         return this.fromJson;
     }
 
@@ -67,13 +74,17 @@ public class WellRestedResponse implements Serializable {
     }
 
 
-    private ResultResponseMapper fromResult = new ResultResponseMapper();
+    @ToString.Exclude
+    private transient ResultResponseMapper fromResult;
 
     /**
      * NOTE: Use this method only if your json response is of type: {@link Result}.
      * Otherwise use {@link WellRestedResponse#fromJson()}
      */
     public ResultResponseMapper fromResult() {
+        if (this.fromResult == null) {
+            this.fromResult = new ResultResponseMapper();
+        }
         return this.fromResult;
     }
 
@@ -145,7 +156,7 @@ public class WellRestedResponse implements Serializable {
     public boolean isResult() {
         if (StringUtils.isNotBlank(serverResponse)) {
             try {
-                return fromJson.castTo(Result.class) != null;
+                return fromJson().castTo(Result.class) != null;
             } catch (Exception e) {
                 log.warn("isResult: exception occurred - {}", e);
             }
@@ -0,0 +1,21 @@
+package com.lindar.wellrested;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Java 21 version, loaded from {@code META-INF/versions/21} of the multi-release jar.
+ */
+@UtilityClass
+class VirtualThreads {
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    static ExecutorService newPerTaskExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("well-rested-", 0).factory());
+    }
+}
@@ -0,0 +1,101 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class AsyncRequestTest {
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/asynctest/first")).willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+                                                                           .withBody("{ \"Test\" : \"Successful\" }")));
+        stubFor(get(urlEqualTo("/asynctest/headers")).withHeader("Accept", equalTo("application/json"))
+                                                     .willReturn(aResponse().withStatus(200).withBody("Header found")));
+        stubFor(post(urlEqualTo("/asynctest/json")).withRequestBody(equalToJson("{ \"id\" : 1 }"))
+                                                   .willReturn(aResponse().withStatus(201).withBody("Created")));
+        stubFor(get(urlEqualTo("/asynctest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(2000).withBody("Too late")));
+        stubFor(get(urlEqualTo("/asynctest/auth")).withBasicAuth("testuser", "testpass").willReturn(aResponse().withStatus(200).withBody("Authorised")));
+    }
+
+    @Test
+    public void testAsyncGet() {
+        WellRestedResponse response = builder.url("http://localhost:8089/asynctest/first").build().get().submitAsync().join();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("{ \"Test\" : \"Successful\" }", response.getServerResponse());
+        assertEquals("application/json", response.getResponseHeaders().get("Content-Type"));
+    }
+
+    @Test
+    public void testAsyncGlobalHeaders() {
+        WellRestedResponse response = builder.url("http://localhost:8089/asynctest/headers")
+                                             .addGlobalHeader("Accept", "application/json")
+                                             .build().get().submitAsync().join();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("Header found", response.getServerResponse());
+    }
+
+    @Test
+    public void testAsyncPostJson() {
+        WellRestedResponse response = builder.url("http://localhost:8089/asynctest/json").build().post().jsonContent("{ \"id\" : 1 }").submitAsync().join();
+
+        assertEquals(201, response.getStatusCode());
+        assertEquals("Created", response.getServerResponse());
+    }
+
+    @Test
+    public void testAsyncCredentials() {
+        WellRestedResponse response = builder.url("http://localhost:8089/asynctest/auth").credentials("testuser", "testpass").build().get().submitAsync().join();
+
+        assertEquals(200, response.getStatusCode());
+    }
+
+    @Test
+    public void testAsyncSocketTimeout() {
+        WellRestedResponse response = builder.url("http://localhost:8089/asynctest/slow").responseTimeout(200).build().get().submitAsync().join();
+
+        assertEquals(-1, response.getStatusCode());
+        assertTrue(response.isSocketTimeout());
+        assertTrue(response.isClientTimeout());
+    }
+
+    @Test
+    public void testDedicatedAsyncClientAndResponseExecutor() {
+        ExecutorService responseExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "response-decoder"));
+        AtomicReference<String> decodingThread = new AtomicReference<>();
+        try {
+            CompletableFuture<WellRestedResponse> future = builder.url("http://localhost:8089/asynctest/first")
+                                                                  .ioThreads(1)
+                                                                  .asyncResponseExecutor(command -> responseExecutor.execute(() -> {
+                                                                      decodingThread.set(Thread.currentThread().getName());
+                                                                      command.run();
+                                                                  }))
+                                                                  .build().get().submitAsync();
+
+            assertEquals(200, future.join().getStatusCode());
+            assertEquals("response-decoder", decodingThread.get());
+        } finally {
+            responseExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.json.GsonJsonMapper;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class BulkRequestTest {
+    private static final int REQUESTS = 30;
+
+    @BeforeAll
+    public static void setupTests() {
+        for (int i = 0; i < REQUESTS; i++) {
+            // later requests respond faster so completion order differs from submission order
+            stubFor(get(urlEqualTo("/bulktest/" + i)).willReturn(aResponse().withStatus(200).withFixedDelay((REQUESTS - i) * 5).withBody("Response " + i)));
+        }
+    }
+
+    @Test
+    public void testResultsInInputOrder() {
+        List<WellRestedResponse> responses = BulkRequest.of(buildRequests()).maxConcurrency(8).submit();
+
+        assertEquals(REQUESTS, responses.size());
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(200, responses.get(i).getStatusCode());
+            assertEquals("Response " + i, responses.get(i).getServerResponse());
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<RequestResource> requests = buildRequests().stream().map(request -> new RequestResource() {
+            @Override
+            public WellRestedResponse submit() {
+                return submitAsync().join();
+            }
+
+            @Override
+            public CompletableFuture<WellRestedResponse> submitAsync() {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return request.submitAsync().whenComplete((response, ex) -> inFlight.decrementAndGet());
+            }
+        }).collect(Collectors.toList());
+
+        List<WellRestedResponse> responses = BulkRequest.of(requests).maxConcurrency(4).submit();
+
+        assertEquals(REQUESTS, responses.size());
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testStreamedResponses() {
+        Map<Integer, String> streamed = new ConcurrentHashMap<>();
+
+        BulkRequest.of(buildRequests()).maxConcurrency(REQUESTS).onResponse((index, response) -> streamed.put(index, response.getServerResponse())).submit();
+
+        assertEquals(REQUESTS, streamed.size());
+        streamed.forEach((index, body) -> assertEquals("Response " + index, body));
+    }
+
+    @Test
+    public void testFailingListenerFailsTheBatchAndCancelsTheRequestsInFlight() throws Exception {
+        List<CompletableFuture<WellRestedResponse>> submitted = Collections.synchronizedList(new ArrayList<>());
+        List<RequestResource> requests = buildRequests().stream().map(request -> new RequestResource() {
+            @Override
+            public WellRestedResponse submit() {
+                return submitAsync().join();
+            }
+
+            @Override
+            public CompletableFuture<WellRestedResponse> submitAsync() {
+                CompletableFuture<WellRestedResponse> future = request.submitAsync();
+                submitted.add(future);
+                return future;
+            }
+        }).collect(Collectors.toList());
+
+        CompletableFuture<List<WellRestedResponse>> result = BulkRequest.of(requests).maxConcurrency(REQUESTS).onResponse((index, response) -> {
+            throw new IllegalStateException("listener failed");
+        }).submitAsync();
+
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertTrue(ex.getCause() instanceof IllegalStateException);
+        CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0])).handle((responses, failure) -> null).get(2, TimeUnit.SECONDS);
+        // the slower requests were cancelled instead of completing
+        assertTrue(submitted.stream().anyMatch(CompletableFuture::isCancelled));
+    }
+
+    @Test
+    public void testRequestsCompletingStraightAway() throws Exception {
+        WellRestedResponse rejected = new WellRestedResponse(new GsonJsonMapper());
+        rejected.setConnectionRequestRejected(true);
+        RequestResource request = new RequestResource() {
+            @Override
+            public WellRestedResponse submit() {
+                return rejected;
+            }
+
+            @Override
+            public CompletableFuture<WellRestedResponse> submitAsync() {
+                return CompletableFuture.completedFuture(rejected);
+            }
+        };
+
+        // each request submits the next one from its callback, the batch must not nest them on the stack
+        List<WellRestedResponse> responses = BulkRequest.of(Collections.nCopies(100_000, request)).maxConcurrency(4).submitAsync().get(10, TimeUnit.SECONDS);
+
+        assertEquals(100_000, responses.size());
+        assertTrue(responses.stream().allMatch(WellRestedResponse::isConnectionRequestRejected));
+    }
+
+    @Test
+    public void testEmptyBatchAndInvalidConcurrency() {
+        assertTrue(BulkRequest.of(Collections.emptyList()).submit().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> BulkRequest.of(buildRequests()).maxConcurrency(0));
+    }
+
+    private List<RequestResource> buildRequests() {
+        return IntStream.range(0, REQUESTS)
+                        .mapToObj(i -> WellRestedRequest.builder().url("http://localhost:8089/bulktest/" + i).build().get())
+                        .collect(Collectors.toCollection(ArrayList::new));
+    }
+}
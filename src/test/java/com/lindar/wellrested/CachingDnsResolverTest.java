@@ -0,0 +1,256 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class CachingDnsResolverTest {
+    private static final InetAddress FIRST  = address(10, 0, 0, 1);
+    private static final InetAddress SECOND = address(10, 0, 0, 2);
+    private static final InetAddress THIRD  = address(10, 0, 0, 3);
+
+    private final AtomicLong    now     = new AtomicLong(1000);
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    private volatile InetAddress[] records = {FIRST};
+
+    private final DnsResolver fakeResolver = new DnsResolver() {
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (failing.get()) {
+                throw new UnknownHostException(host);
+            }
+            return records;
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) {
+            return host;
+        }
+    };
+
+    // the scheduled refreshes are run by the tests with runRefreshes() so they can check their outcome straight away
+    private final CachingDnsResolver resolver = new CachingDnsResolver(fakeResolver, 1000, 2, (task, delay) -> refreshes.add(task), now::get);
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/dnstest/get")).willReturn(aResponse().withStatus(200).withBody("resolved")));
+    }
+
+    @Test
+    public void testCachedUntilRefresh() throws Exception {
+        assertArrayEquals(new InetAddress[]{FIRST}, resolver.resolve("backend"));
+        now.addAndGet(700);
+        assertArrayEquals(new InetAddress[]{FIRST}, resolver.resolve("backend"));
+
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testRefreshedBeforeExpiry() throws Exception {
+        resolver.resolve("backend");
+        records = new InetAddress[]{SECOND};
+
+        now.addAndGet(750);
+        runRefreshes();
+        assertEquals(2, lookups.get());
+
+        now.addAndGet(500);
+        assertArrayEquals(new InetAddress[]{SECOND}, resolver.resolve("backend"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testUnusedRecordIsEvictedInsteadOfRefreshed() throws Exception {
+        resolver.resolve("backend");
+        runRefreshes();
+        assertEquals(2, lookups.get());
+
+        runRefreshes();
+        assertEquals(2, lookups.get());
+        resolver.resolve("backend");
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    public void testFailedRefreshKeepsTheRecord() throws Exception {
+        resolver.resolve("backend");
+        failing.set(true);
+
+        runRefreshes();
+        assertArrayEquals(new InetAddress[]{FIRST}, resolver.resolve("backend"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        resolver.resolve("first");
+        now.addAndGet(10);
+        resolver.resolve("second");
+        now.addAndGet(10);
+        resolver.resolve("third");
+        assertEquals(3, lookups.get());
+
+        resolver.resolve("second");
+        resolver.resolve("third");
+        assertEquals(3, lookups.get());
+        resolver.resolve("first");
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneCall() throws Exception {
+        AtomicReference<CountDownLatch> release = new AtomicReference<>();
+        DnsResolver slowResolver = new DnsResolver() {
+            @Override
+            public InetAddress[] resolve(String host) throws UnknownHostException {
+                lookups.incrementAndGet();
+                try {
+                    release.get().await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return records;
+            }
+
+            @Override
+            public String resolveCanonicalHostname(String host) {
+                return host;
+            }
+        };
+        CachingDnsResolver sharedResolver = new CachingDnsResolver(slowResolver, 1000, 2, (task, delay) -> refreshes.add(task), now::get);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            release.set(new CountDownLatch(1));
+            assertConcurrentLookups(sharedResolver, callers, release.get(), 1);
+
+            // the stampede at expiry is deduplicated as well
+            now.addAndGet(1000);
+            release.set(new CountDownLatch(1));
+            assertConcurrentLookups(sharedResolver, callers, release.get(), 2);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private void assertConcurrentLookups(CachingDnsResolver sharedResolver, ExecutorService callers, CountDownLatch release,
+                                         int expectedLookups) throws Exception {
+        CountDownLatch started = new CountDownLatch(16);
+        List<Future<InetAddress[]>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(() -> {
+                started.countDown();
+                return sharedResolver.resolve("backend");
+            }));
+        }
+        started.await();
+        // give the callers time to pile up behind the pending lookup
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<InetAddress[]> result : results) {
+            assertArrayEquals(new InetAddress[]{FIRST}, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(expectedLookups, lookups.get());
+    }
+
+    @Test
+    public void testServesStaleRecordWhileResolverFails() throws Exception {
+        resolver.resolve("backend");
+        failing.set(true);
+
+        now.addAndGet(5000);
+        assertArrayEquals(new InetAddress[]{FIRST}, resolver.resolve("backend"));
+        assertArrayEquals(new InetAddress[]{FIRST}, resolver.resolve("backend"));
+        assertEquals(2, lookups.get());
+
+        failing.set(false);
+        records = new InetAddress[]{SECOND};
+        now.addAndGet(1000);
+        assertArrayEquals(new InetAddress[]{SECOND}, resolver.resolve("backend"));
+    }
+
+    @Test
+    public void testUnknownHostWithoutCachedRecord() {
+        failing.set(true);
+
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("backend"));
+    }
+
+    @Test
+    public void testShufflesMultipleRecords() throws Exception {
+        records = new InetAddress[]{FIRST, SECOND, THIRD};
+
+        Set<InetAddress> firstAddresses = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            InetAddress[] addresses = resolver.resolve("backend");
+            assertEquals(new HashSet<>(Arrays.asList(records)), new HashSet<>(Arrays.asList(addresses)));
+            firstAddresses.add(addresses[0]);
+        }
+        assertTrue(firstAddresses.size() > 1);
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void testPoolUsesTheCachedResolver() {
+        records = new InetAddress[]{InetAddress.getLoopbackAddress()};
+        WellRestedRequest request = WellRestedRequest.builder()
+                                                     .url("http://backend.dnstest:8089/dnstest/get")
+                                                     .dnsResolver(fakeResolver)
+                                                     .dnsCache(60000)
+                                                     .build();
+
+        WellRestedResponse response = request.get().submit();
+        WellRestedResponse asyncResponse = request.get().submitAsync().join();
+
+        assertEquals("resolved", response.getServerResponse());
+        assertEquals("resolved", asyncResponse.getServerResponse());
+        assertEquals(1, lookups.get());
+    }
+
+    private void runRefreshes() {
+        List<Runnable> scheduled = new ArrayList<>(refreshes);
+        refreshes.clear();
+        scheduled.forEach(Runnable::run);
+    }
+
+    private static InetAddress address(int... bytes) {
+        try {
+            return InetAddress.getByAddress(new byte[]{(byte) bytes[0], (byte) bytes[1], (byte) bytes[2], (byte) bytes[3]});
+        } catch (UnknownHostException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class CancellationTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/canceltest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(5000).withBody("slow")));
+        stubFor(get(urlEqualTo("/canceltest/fast")).willReturn(aResponse().withStatus(200).withBody("fast")));
+        stubFor(get(urlEqualTo("/canceltest/interrupted")).willReturn(aResponse().withStatus(200).withBody("interrupted")));
+    }
+
+    @Test
+    public void testCancelledFutureReleasesConnection() throws Exception {
+        ConnectionPoolSettings poolSettings = new ConnectionPoolSettings();
+        poolSettings.setMaxConnections(1);
+        poolSettings.setMaxConnectionsPerRoute(1);
+        try (CloseableHttpAsyncClient singleConnectionClient = poolSettings.buildAsyncHttpClient()) {
+            WellRestedRequest slow = WellRestedRequest.builder().url("http://localhost:8089/canceltest/slow").customAsyncHttpClient(singleConnectionClient).build();
+            WellRestedRequest fast = WellRestedRequest.builder().url("http://localhost:8089/canceltest/fast").customAsyncHttpClient(singleConnectionClient).build();
+
+            // the slow request reuses the pooled connection, which the async client leases without connecting
+            assertEquals(200, fast.get().submitAsync().get(2, TimeUnit.SECONDS).getStatusCode());
+
+            CompletableFuture<WellRestedResponse> future = slow.get().submitAsync();
+            Thread.sleep(200);
+            assertTrue(future.cancel(true));
+
+            // the pool has a single connection, the cancelled exchange must give it back
+            WellRestedResponse response = fast.get().submitAsync().get(2, TimeUnit.SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertEquals("fast", response.getServerResponse());
+        }
+    }
+
+    @Test
+    public void testInterruptedThreadIsNotSent() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/canceltest/interrupted").build();
+
+        Thread.currentThread().interrupt();
+        WellRestedResponse response = request.get().submit();
+
+        assertTrue(Thread.interrupted());
+        assertTrue(response.isCancelled());
+        assertFalse(response.isValid());
+        assertEquals(-1, response.getStatusCode());
+        verify(0, getRequestedFor(urlEqualTo("/canceltest/interrupted")));
+    }
+
+    @Test
+    public void testInterruptAbortsWaitingSubmit() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/canceltest/slow").pipelining().build();
+        CompletableFuture<WellRestedResponse> result = new CompletableFuture<>();
+        Thread caller = new Thread(() -> result.complete(request.get().submit()));
+
+        long start = System.currentTimeMillis();
+        caller.start();
+        Thread.sleep(200);
+        caller.interrupt();
+
+        WellRestedResponse response = result.get(2, TimeUnit.SECONDS);
+        assertTrue(response.isCancelled());
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+}
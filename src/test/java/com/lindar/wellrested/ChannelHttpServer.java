@@ -0,0 +1,133 @@
+package com.lindar.wellrested;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal keep-alive HTTP/1.1 server listening on a unix domain socket or a loopback TCP port, so both transports
+ * are served by the same code. It answers every request with "METHOD PATH HOST[ BODY]", /slow paths wait 2 seconds first.
+ */
+public class ChannelHttpServer implements Closeable {
+    private final ServerSocketChannel serverChannel;
+    private final Path                socketPath;
+    private final AtomicInteger       acceptedConnections = new AtomicInteger();
+
+    private ChannelHttpServer(ServerSocketChannel serverChannel, Path socketPath) {
+        this.serverChannel = serverChannel;
+        this.socketPath = socketPath;
+        Thread acceptor = new Thread(this::accept, "channel-http-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public static ChannelHttpServer unixDomainSocket(Path socketPath) throws Exception {
+        ServerSocketChannel serverChannel = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+                                                                                         .invoke(null, UnixDomainSockets.protocolFamily());
+        serverChannel.bind(UnixDomainSockets.address(socketPath));
+        return new ChannelHttpServer(serverChannel, socketPath);
+    }
+
+    public static ChannelHttpServer tcp() throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        return new ChannelHttpServer(serverChannel, null);
+    }
+
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public int getAcceptedConnections() {
+        return acceptedConnections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    private void accept() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                acceptedConnections.incrementAndGet();
+                Thread connection = new Thread(() -> serve(channel), "channel-http-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (SocketChannel ignored = channel) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+            OutputStream out = Channels.newOutputStream(channel);
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && !requestLine.isEmpty()) {
+                String host = "";
+                int contentLength = 0;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    String name = header.substring(0, header.indexOf(':')).trim().toLowerCase(Locale.ROOT);
+                    String value = header.substring(header.indexOf(':') + 1).trim();
+                    if (name.equals("host")) {
+                        host = value;
+                    } else if (name.equals("content-length")) {
+                        contentLength = Integer.parseInt(value);
+                    }
+                }
+                byte[] body = new byte[contentLength];
+                for (int read = 0; read < contentLength; ) {
+                    read += in.read(body, read, contentLength - read);
+                }
+
+                String[] parts = requestLine.split(" ");
+                if (parts[1].endsWith("/slow")) {
+                    Thread.sleep(2000);
+                }
+                byte[] responseBody = (parts[0] + " " + parts[1] + " " + host + (contentLength > 0 ? " " + new String(body, StandardCharsets.UTF_8) : ""))
+                        .getBytes(StandardCharsets.UTF_8);
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                response.write(("HTTP/1.1 200 OK\r\nContent-Type: text/plain; charset=UTF-8\r\nContent-Length: " + responseBody.length + "\r\n\r\n")
+                                       .getBytes(StandardCharsets.US_ASCII));
+                response.write(responseBody);
+                // a single write, so small responses aren't held back by Nagle's algorithm on TCP
+                out.write(response.toByteArray());
+            }
+        } catch (IOException | InterruptedException ex) {
+            // the client closed the connection
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int value;
+        while ((value = in.read()) != -1) {
+            if (value == '\n') {
+                return new String(line.toByteArray(), StandardCharsets.US_ASCII).trim();
+            }
+            line.write(value);
+        }
+        return line.size() > 0 ? new String(line.toByteArray(), StandardCharsets.US_ASCII).trim() : null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class ClientLifecycleTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/lifecycletest/fast")).willReturn(aResponse().withStatus(200).withBody("fast")));
+        stubFor(get(urlEqualTo("/lifecycletest/slow")).willReturn(aResponse().withStatus(200).withBody("slow").withFixedDelay(500)));
+        stubFor(get(urlEqualTo("/lifecycletest/stuck")).willReturn(aResponse().withStatus(200).withBody("stuck").withFixedDelay(3000)));
+    }
+
+    @Test
+    public void testCloseDrainsRequestsInFlight() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/lifecycletest/slow").maxConnections(5).build();
+
+        CompletableFuture<WellRestedResponse> inFlight = request.get().submitAsync();
+
+        assertTrue(request.close(5000));
+        assertEquals("slow", inFlight.join().getServerResponse());
+        assertThrows(IllegalStateException.class, () -> request.get().submit());
+        assertThrows(IllegalStateException.class, () -> request.get().submitAsync());
+    }
+
+    @Test
+    public void testCloseAbortsRequestsAfterTheDrainTimeout() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/lifecycletest/stuck").maxConnections(5).build();
+
+        CompletableFuture<WellRestedResponse> inFlight = request.get().submitAsync();
+
+        assertFalse(request.close(200));
+        assertTrue(inFlight.join().isCancelled());
+    }
+
+    @Test
+    public void testCloseLeavesTheSharedClientsOpen() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/lifecycletest/fast").build();
+        request.close();
+
+        WellRestedRequest other = WellRestedRequest.builder().url("http://localhost:8089/lifecycletest/fast").build();
+        assertEquals("fast", other.get().submit().getServerResponse());
+        assertEquals("fast", other.get().submitAsync().join().getServerResponse());
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/lifecycletest/fast").evictIdleConnections(100).build();
+
+        assertEquals("fast", request.get().submit().getServerResponse());
+        assertEquals(1, request.getPoolStats().getAvailable());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (request.getPoolStats().getAvailable() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, request.getPoolStats().getAvailable());
+        request.close();
+    }
+
+    @Test
+    public void testKeepAliveRespectsServerHint() {
+        KeepAliveStrategy strategy = new KeepAliveStrategy(10000);
+
+        BasicHttpResponse withHint = new BasicHttpResponse(200);
+        withHint.addHeader("Keep-Alive", "timeout=5, max=100");
+        assertEquals(5000 - KeepAliveStrategy.SAFETY_MARGIN, strategy.getKeepAliveDuration(withHint, new BasicHttpContext()).toMilliseconds());
+
+        BasicHttpResponse withLongHint = new BasicHttpResponse(200);
+        withLongHint.addHeader("Keep-Alive", "timeout=600");
+        assertEquals(10000, strategy.getKeepAliveDuration(withLongHint, new BasicHttpContext()).toMilliseconds());
+
+        BasicHttpResponse withZeroHint = new BasicHttpResponse(200);
+        withZeroHint.addHeader("Keep-Alive", "timeout=0");
+        assertEquals(1, strategy.getKeepAliveDuration(withZeroHint, new BasicHttpContext()).toMilliseconds());
+
+        assertEquals(10000, strategy.getKeepAliveDuration(new BasicHttpResponse(200), new BasicHttpContext()).toMilliseconds());
+    }
+}
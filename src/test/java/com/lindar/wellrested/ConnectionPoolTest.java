@@ -0,0 +1,103 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class ConnectionPoolTest {
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/pooltest/first")).willReturn(aResponse().withStatus(200).withBody("Pool Test: Success")));
+        stubFor(get(urlEqualTo("/pooltest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(300).withBody("slow")));
+    }
+
+    @Test
+    public void testNoPoolSettings() {
+        WellRestedRequest request = builder.url("http://localhost:8089/pooltest/first").build();
+
+        assertNull(request.getPoolStats());
+        assertEquals(200, request.get().submit().getStatusCode());
+    }
+
+    @Test
+    public void testDedicatedPool() {
+        WellRestedRequest request = builder.url("http://localhost:8089/pooltest/first")
+                                           .maxConnections(5)
+                                           .maxConnectionsPerRoute(2)
+                                           .maxConnectionsPerHost("http://localhost:8089", 3)
+                                           .connectionTimeToLive(60000)
+                                           .validateAfterInactivity(1000)
+                                           .tcpNoDelay(true)
+                                           .socketReceiveBufferSize(64 * 1024)
+                                           .build();
+
+        WellRestedResponse response1 = request.get().submit();
+        WellRestedResponse response2 = request.get().submit();
+
+        assertEquals(200, response1.getStatusCode());
+        assertEquals("Pool Test: Success", response1.getServerResponse());
+        assertEquals(200, response2.getStatusCode());
+
+        PoolStats poolStats = request.getPoolStats();
+        assertNotNull(poolStats);
+        assertEquals(5, poolStats.getMax());
+        assertEquals(0, poolStats.getLeased());
+        assertEquals(1, poolStats.getAvailable());
+    }
+
+    @Test
+    public void testRequestsWaitForAConnectionOfAFullPool() {
+        WellRestedRequest request = builder.url("http://localhost:8089/pooltest/slow").maxConnectionsPerRoute(2).build();
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 6)
+                                                                       .mapToObj(i -> CompletableFuture.supplyAsync(() -> request.get().submit(), executor(6)))
+                                                                       .collect(Collectors.toList());
+
+        futures.forEach(future -> assertEquals("slow", future.join().getServerResponse()));
+        assertEquals(0, request.getPoolStats().getLeased());
+    }
+
+    @Test
+    public void testDeadlineAbortsTheWaitForAConnection() throws Exception {
+        WellRestedRequest request = builder.url("http://localhost:8089/pooltest/slow").maxConnectionsPerRoute(1).build();
+        CompletableFuture<WellRestedResponse> holding = CompletableFuture.supplyAsync(() -> request.get().submit(), executor(1));
+        Thread.sleep(100);
+
+        long start = System.currentTimeMillis();
+        assertTrue(request.get().deadline(100).submit().isSocketTimeout());
+        assertTrue(System.currentTimeMillis() - start < 250);
+
+        assertEquals("slow", holding.join().getServerResponse());
+        assertEquals("slow", request.get().submit().getServerResponse());
+        assertEquals(0, request.getPoolStats().getLeased());
+    }
+
+    private static ExecutorService executor(int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
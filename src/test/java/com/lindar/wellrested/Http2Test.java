@@ -0,0 +1,147 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs against a local h2c (prior knowledge) server as WireMock only speaks HTTP/1.1 on plain connections.
+ * Every test gets its own server so the connections it counts are only the ones of the test.
+ */
+public class Http2Test {
+    private final ConnectionCounter        connections = new ConnectionCounter();
+    private final WellRestedRequestBuilder builder     = new WellRestedRequestBuilder();
+
+    private HttpAsyncServer server;
+    private String          baseUrl;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                                  .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                                  // a single dispatch thread sees the connections open and close in order
+                                  .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(1).build())
+                                  .setIOSessionListener(connections)
+                                  .register("*", new ProtocolEchoHandler())
+                                  .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("localhost", 0)).get();
+        baseUrl = "http://localhost:" + ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Test
+    public void testSyncGetOverH2c() {
+        WellRestedResponse response = builder.url(baseUrl + "/h2test/sync").http2().build().get().submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("HTTP/2.0 GET /h2test/sync", response.getServerResponse());
+    }
+
+    @Test
+    public void testPostOverH2c() {
+        WellRestedResponse response = builder.url(baseUrl + "/h2test/post").http2().build().post().jsonContent("{}").submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("HTTP/2.0 POST /h2test/post {}", response.getServerResponse());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneConnection() {
+        WellRestedRequest request = builder.url(baseUrl + "/h2test/multiplexed").http2MaxConcurrentStreams(100).build();
+        assertEquals(200, request.get().submit().getStatusCode());
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 50)
+                                                                       .mapToObj(i -> request.get().submitAsync())
+                                                                       .collect(Collectors.toList());
+
+        futures.forEach(future -> assertEquals(200, future.join().getStatusCode()));
+        // the client reconnects if httpcore drops the connection, but never opens a second one alongside it
+        assertEquals(1, connections.maxOpen.get());
+    }
+
+    private static class ProtocolEchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails != null ? new StringAsyncEntityConsumer() : null);
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context) throws java.io.IOException, org.apache.hc.core5.http.HttpException {
+            HttpRequest request = message.getHead();
+            String body = context.getProtocolVersion() + " " + request.getMethod() + " " + request.getPath()
+                          + (message.getBody() != null ? " " + message.getBody() : "");
+            responseTrigger.submitResponse(AsyncResponseBuilder.create(200)
+                                                               .setEntity(AsyncEntityProducers.create(body, ContentType.TEXT_PLAIN))
+                                                               .build(), context);
+        }
+    }
+
+    private static class ConnectionCounter implements IOSessionListener {
+        private final AtomicInteger open    = new AtomicInteger();
+        private final AtomicInteger maxOpen = new AtomicInteger();
+
+        @Override
+        public void connected(IOSession session) {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+        }
+
+        @Override
+        public void startTls(IOSession session) {
+        }
+
+        @Override
+        public void inputReady(IOSession session) {
+        }
+
+        @Override
+        public void outputReady(IOSession session) {
+        }
+
+        @Override
+        public void timeout(IOSession session) {
+        }
+
+        @Override
+        public void exception(IOSession session, Exception ex) {
+        }
+
+        @Override
+        public void disconnected(IOSession session) {
+            open.decrementAndGet();
+        }
+    }
+}
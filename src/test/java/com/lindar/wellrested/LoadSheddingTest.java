@@ -0,0 +1,65 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class LoadSheddingTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/sheddingtest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("slow")));
+    }
+
+    @Test
+    public void testAsyncRequestsOverTheLimitAreRejected() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/sheddingtest/slow")
+                                                     .maxConnectionsPerRoute(2).maxPendingRequestsPerRoute(1).build();
+
+        List<CompletableFuture<WellRestedResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(request.get().submitAsync());
+        }
+        for (int i = 3; i < 6; i++) {
+            assertTrue(futures.get(i).isDone());
+            WellRestedResponse rejected = futures.get(i).join();
+            assertTrue(rejected.isConnectionRequestRejected());
+            assertFalse(rejected.isConnectionRequestTimeout());
+            assertEquals(-1, rejected.getStatusCode());
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals("slow", futures.get(i).join().getServerResponse());
+        }
+
+        assertEquals("slow", request.get().submit().getServerResponse());
+    }
+
+    @Test
+    public void testBlockingRequestsOverTheLimitAreRejected() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/sheddingtest/slow")
+                                                     .maxConnectionsPerRoute(1).maxPendingRequestsPerRoute(0).build();
+
+        CompletableFuture<WellRestedResponse> holding = CompletableFuture.supplyAsync(() -> request.get().submit());
+        Thread.sleep(200);
+
+        long start = System.currentTimeMillis();
+        WellRestedResponse rejected = request.get().submit();
+        assertTrue(rejected.isConnectionRequestRejected());
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertEquals("slow", holding.join().getServerResponse());
+    }
+}
@@ -0,0 +1,83 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.model.PHEntry;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoopbackTest {
+    private static final String JSON_ENTRY = "{\"userId\":1,\"id\":2,\"title\":\"loopback\",\"body\":\"no sockets\"}";
+
+    private final AtomicReference<ClassicHttpRequest> lastRequest = new AtomicReference<>();
+    private final AtomicReference<String>             lastBody    = new AtomicReference<>();
+
+    private final LoopbackHandler handler = request -> {
+        lastRequest.set(request);
+        lastBody.set(request.getEntity() != null ? EntityUtils.toString(request.getEntity()) : null);
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+        response.setEntity(new StringEntity(JSON_ENTRY, ContentType.APPLICATION_JSON));
+        return response;
+    };
+
+    @Test
+    public void testGetIsMappedLikeANetworkResponse() {
+        WellRestedResponse response = WellRestedRequest.builder().url("http://backend.internal/loopbacktest/get").loopback(handler).build().get().submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("loopback", response.fromJson().castTo(PHEntry.class).getTitle());
+        assertEquals("/loopbacktest/get", lastRequest.get().getPath());
+        assertEquals("backend.internal", lastRequest.get().getFirstHeader("Host").getValue());
+    }
+
+    @Test
+    public void testHeadersAndCredentialsReachTheHandler() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder()
+                                                     .url("http://backend.internal:8080/loopbacktest/headers")
+                                                     .credentials("testuser", "testpass")
+                                                     .globalHeaders(Collections.singletonMap("X-Global", "global"))
+                                                     .loopback(handler)
+                                                     .build();
+
+        request.get().headers(Collections.singletonMap("X-Request", "request")).submit();
+
+        ClassicHttpRequest received = lastRequest.get();
+        assertEquals("global", received.getFirstHeader("X-Global").getValue());
+        assertEquals("request", received.getFirstHeader("X-Request").getValue());
+        assertTrue(received.getFirstHeader("Authorization").getValue().startsWith("Basic "));
+    }
+
+    @Test
+    public void testPostBodyAndAsync() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/loopbacktest/post").loopback(handler).build();
+
+        WellRestedResponse response = request.post().jsonContent(PHEntry.builder().id(3).title("posted").build()).submitAsync().get(1, TimeUnit.SECONDS);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("POST", lastRequest.get().getMethod());
+        assertTrue(lastBody.get().contains("\"title\":\"posted\""));
+    }
+
+    @Test
+    public void testHandlerErrorIsAnErrorResponse() {
+        WellRestedResponse response = WellRestedRequest.builder()
+                                                       .url("http://backend.internal/loopbacktest/error")
+                                                       .loopback(request -> {
+                                                           throw new IOException("handler failed");
+                                                       })
+                                                       .build().get().submit();
+
+        assertEquals(500, response.getStatusCode());
+    }
+}
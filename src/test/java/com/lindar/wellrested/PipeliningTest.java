@@ -0,0 +1,155 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.impl.bootstrap.AsyncServerBootstrap;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against a local HTTP/1.1 server so the connections opened by the client can be counted
+ */
+public class PipeliningTest {
+    private static final AtomicInteger connections = new AtomicInteger();
+
+    private static HttpAsyncServer server;
+    private static String          baseUrl;
+
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = AsyncServerBootstrap.bootstrap()
+                                     .setIOSessionListener(new ConnectionCounter())
+                                     .register("*", new EchoHandler())
+                                     .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("localhost", 0)).get();
+        baseUrl = "http://localhost:" + ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Test
+    public void testSyncGet() {
+        WellRestedResponse response = builder.url(baseUrl + "/pipelinetest/sync").pipelining().build().get().submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("GET /pipelinetest/sync", response.getServerResponse());
+    }
+
+    @Test
+    public void testBurstSharesOneConnectionAndKeepsOrder() {
+        WellRestedRequest request = builder.url(baseUrl + "/pipelinetest/burst").pipelining().build();
+        int connectionsBefore = connections.get();
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 50)
+                                                                       .mapToObj(i -> request.get().headers(Collections.singletonMap("X-Sequence", String.valueOf(i))).submitAsync())
+                                                                       .collect(Collectors.toList());
+
+        for (int i = 0; i < futures.size(); i++) {
+            WellRestedResponse response = futures.get(i).join();
+            assertEquals(200, response.getStatusCode());
+            assertEquals("GET /pipelinetest/burst " + i, response.getServerResponse());
+        }
+        assertEquals(1, connections.get() - connectionsBefore);
+    }
+
+    @Test
+    public void testPostUsesRegularClient() {
+        WellRestedResponse response = builder.url(baseUrl + "/pipelinetest/post").pipelining().build().post().jsonContent("{}").submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("POST /pipelinetest/post {}", response.getServerResponse());
+    }
+
+    @Test
+    public void testResponseTimeoutOverride() throws Exception {
+        try (ChannelHttpServer slowServer = ChannelHttpServer.tcp()) {
+            WellRestedRequest request = builder.url("http://localhost:" + slowServer.getPort() + "/pipelinetest/slow").pipelining().build();
+
+            long start = System.currentTimeMillis();
+            assertTrue(request.get().responseTimeout(300).submit().isSocketTimeout());
+            assertTrue(System.currentTimeMillis() - start < 1500);
+        }
+    }
+
+    private static class EchoHandler implements AsyncServerRequestHandler<Message<HttpRequest, String>> {
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(entityDetails != null ? new StringAsyncEntityConsumer() : null);
+        }
+
+        @Override
+        public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context) throws java.io.IOException, org.apache.hc.core5.http.HttpException {
+            HttpRequest request = message.getHead();
+            String body = request.getMethod() + " " + request.getPath()
+                          + (request.containsHeader("X-Sequence") ? " " + request.getFirstHeader("X-Sequence").getValue() : "")
+                          + (message.getBody() != null ? " " + message.getBody() : "");
+            responseTrigger.submitResponse(AsyncResponseBuilder.create(200)
+                                                               .setEntity(AsyncEntityProducers.create(body, ContentType.TEXT_PLAIN))
+                                                               .build(), context);
+        }
+    }
+
+    private static class ConnectionCounter implements IOSessionListener {
+        @Override
+        public void connected(IOSession session) {
+            connections.incrementAndGet();
+        }
+
+        @Override
+        public void startTls(IOSession session) {
+        }
+
+        @Override
+        public void inputReady(IOSession session) {
+        }
+
+        @Override
+        public void outputReady(IOSession session) {
+        }
+
+        @Override
+        public void timeout(IOSession session) {
+        }
+
+        @Override
+        public void exception(IOSession session, Exception ex) {
+        }
+
+        @Override
+        public void disconnected(IOSession session) {
+        }
+    }
+}
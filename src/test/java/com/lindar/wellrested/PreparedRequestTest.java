@@ -0,0 +1,112 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.model.PHEntry;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(TestEnvironment.class)
+public class PreparedRequestTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/preparedtest/heartbeat")).willReturn(aResponse().withStatus(200).withBody("alive")));
+        stubFor(get(urlEqualTo("/preparedtest/snapshot")).willReturn(aResponse().withStatus(200)));
+        stubFor(get(urlEqualTo("/preparedtest/concurrent")).willReturn(aResponse().withStatus(200).withBody("ok")));
+        stubFor(post(urlEqualTo("/preparedtest/status")).willReturn(aResponse().withStatus(201).withBody("stored")));
+        stubFor(get(urlEqualTo("/preparedtest/auth")).withBasicAuth("testuser", "testpass").willReturn(aResponse().withStatus(200).withBody("Authorised")));
+    }
+
+    @Test
+    public void testPreparedGetIsResubmitted() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/preparedtest/heartbeat").addGlobalHeader("X-Global", "global").build();
+        PreparedRequest heartbeat = request.get().headers(Collections.singletonMap("X-Request", "request")).prepare();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("alive", heartbeat.submit().getServerResponse());
+        }
+        assertEquals("alive", heartbeat.submitAsync().join().getServerResponse());
+
+        verify(4, getRequestedFor(urlEqualTo("/preparedtest/heartbeat")).withHeader("X-Global", equalTo("global")).withHeader("X-Request", equalTo("request")));
+    }
+
+    @Test
+    public void testPreparedBodyIsSentEveryTime() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/preparedtest/status").maxConnections(5).build();
+        PreparedRequest status = request.post().jsonContent(PHEntry.builder().id(7).title("up").build()).prepare();
+
+        assertEquals(201, status.submit().getStatusCode());
+        assertEquals(201, status.submit().getStatusCode());
+        assertEquals(201, status.submitAsync().join().getStatusCode());
+
+        verify(3, postRequestedFor(urlEqualTo("/preparedtest/status")).withHeader("Content-Type", equalTo("application/json; charset=UTF-8"))
+                                                                     .withRequestBody(equalToJson("{\"id\":7,\"title\":\"up\"}", true, true)));
+    }
+
+    @Test
+    public void testGlobalHeadersAreFrozenOnPrepare() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/preparedtest/snapshot").build();
+        PreparedRequest prepared = request.get().prepare();
+        request.addGlobalHeader("X-Later", "later");
+
+        assertEquals(200, prepared.submit().getStatusCode());
+        verify(1, getRequestedFor(urlEqualTo("/preparedtest/snapshot")).withHeader("X-Later", absent()));
+    }
+
+    @Test
+    public void testPreparedRequestSharedBetweenThreads() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/preparedtest/concurrent").maxConnectionsPerRoute(4).build();
+        PreparedRequest prepared = request.get().prepare();
+
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(threads.submit(() -> {
+                boolean ok = true;
+                for (int n = 0; n < 25; n++) {
+                    WellRestedResponse response = n % 2 == 0 ? prepared.submit() : prepared.submitAsync().join();
+                    ok &= "ok".equals(response.getServerResponse());
+                }
+                return ok;
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertEquals(true, result.get(30, TimeUnit.SECONDS));
+        }
+        threads.shutdown();
+        verify(100, getRequestedFor(urlEqualTo("/preparedtest/concurrent")));
+    }
+
+    @Test
+    public void testPreparedRequestWithCredentials() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/preparedtest/auth").credentials("testuser", "testpass").build();
+        PreparedRequest prepared = request.get().prepare();
+
+        CompletableFuture<WellRestedResponse> async = prepared.submitAsync();
+        assertEquals("Authorised", prepared.submit().getServerResponse());
+        assertEquals("Authorised", async.join().getServerResponse());
+    }
+}
@@ -0,0 +1,92 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class RequestTimeoutTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/timeouttest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(1500).withBody("slow")));
+    }
+
+    @Test
+    public void testResponseTimeoutOverride() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/timeouttest/slow").build();
+
+        WellRestedResponse response = request.get().responseTimeout(300).submit();
+        assertTrue(response.isSocketTimeout());
+
+        WellRestedResponse prepared = request.get().responseTimeout(300).prepare().submit();
+        assertTrue(prepared.isSocketTimeout());
+
+        assertEquals("slow", request.get().submit().getServerResponse());
+    }
+
+    @Test
+    public void testDeadline() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/timeouttest/slow").deadline(300).build();
+
+        long start = System.currentTimeMillis();
+        WellRestedResponse response = request.get().submit();
+        assertTrue(response.isSocketTimeout());
+        assertTrue(System.currentTimeMillis() - start < 1200);
+
+        WellRestedResponse async = request.get().submitAsync().join();
+        assertTrue(async.isSocketTimeout());
+
+        assertEquals("slow", request.get().deadline(0).submit().getServerResponse());
+    }
+
+    @Test
+    public void testDeadlineCoversTheRetries() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/timeouttest/slow").deadline(300)
+                                                     .retryPolicy(RetryPolicy.defaults()).build();
+
+        long start = System.currentTimeMillis();
+        assertTrue(request.get().submit().isSocketTimeout());
+        assertTrue(System.currentTimeMillis() - start < 600);
+
+        start = System.currentTimeMillis();
+        assertTrue(request.get().submitAsync().join().isSocketTimeout());
+        assertTrue(System.currentTimeMillis() - start < 600);
+
+        start = System.currentTimeMillis();
+        assertTrue(request.get().prepare().submit().isSocketTimeout());
+        assertTrue(System.currentTimeMillis() - start < 600);
+    }
+
+    @Test
+    public void testConnectionRequestTimeout() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/timeouttest/slow").maxConnections(1).build();
+
+        CompletableFuture<WellRestedResponse> holding = CompletableFuture.supplyAsync(() -> request.get().submit());
+        sleep(300);
+        WellRestedResponse response = request.get().connectionRequestTimeout(200).submit();
+
+        assertTrue(response.isConnectionRequestTimeout());
+        assertFalse(response.isSocketTimeout());
+        assertEquals("slow", holding.join().getServerResponse());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+    private static final RetryPolicy FAST_RETRIES = RetryPolicy.builder().maxAttempts(3).backoff(10, 50).build();
+
+    /**
+     * Answers 503 until the given attempt, then 200
+     */
+    private static LoopbackHandler failingUntil(int successfulAttempt, AtomicInteger attempts) {
+        return request -> {
+            int attempt = attempts.incrementAndGet();
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(attempt >= successfulAttempt ? 200 : 503);
+            response.setEntity(new StringEntity("attempt " + attempt));
+            return response;
+        };
+    }
+
+    @Test
+    public void testIdempotentRequestIsRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/retrytest/get")
+                                                     .retryPolicy(FAST_RETRIES).loopback(failingUntil(3, attempts)).build();
+
+        WellRestedResponse response = request.get().submit();
+        assertEquals(200, response.getStatusCode());
+        assertEquals("attempt 3", response.getServerResponse());
+
+        attempts.set(0);
+        assertEquals("attempt 3", request.put().jsonContent("{}").submitAsync().join().getServerResponse());
+
+        attempts.set(0);
+        assertEquals("attempt 3", request.get().prepare().submit().getServerResponse());
+    }
+
+    @Test
+    public void testLastResponseIsReturnedAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/retrytest/exhausted")
+                                                     .retryPolicy(FAST_RETRIES).loopback(failingUntil(10, attempts)).build();
+
+        WellRestedResponse response = request.get().submit();
+        assertEquals(503, response.getStatusCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testPostIsOnlyRetriedWithAnIdempotencyKey() {
+        AtomicInteger attempts = new AtomicInteger();
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/retrytest/post")
+                                                     .retryPolicy(FAST_RETRIES).loopback(failingUntil(2, attempts)).build();
+
+        assertEquals(503, request.post().jsonContent("{}").submit().getStatusCode());
+        assertEquals(1, attempts.get());
+
+        attempts.set(0);
+        WellRestedResponse response = request.post().headers(Collections.singletonMap("Idempotency-Key", "order-42")).jsonContent("{}").submit();
+        assertEquals(200, response.getStatusCode());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testTimeoutsAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        LoopbackHandler timingOutOnce = request -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new SocketTimeoutException("Read timed out");
+            }
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+            response.setEntity(new StringEntity("attempt " + attempts.get()));
+            return response;
+        };
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/retrytest/timeout")
+                                                     .retryPolicy(FAST_RETRIES).loopback(timingOutOnce).build();
+
+        assertEquals("attempt 2", request.get().submit().getServerResponse());
+
+        attempts.set(0);
+        assertTrue(request.post().jsonContent("{}").submit().isSocketTimeout());
+        assertEquals(1, attempts.get());
+
+        WellRestedRequest noTimeoutRetries = WellRestedRequest.builder().url("http://backend.internal/retrytest/timeout")
+                                                              .retryPolicy(RetryPolicy.builder().retryOnTimeouts(false).build())
+                                                              .loopback(timingOutOnce).build();
+        attempts.set(0);
+        assertTrue(noTimeoutRetries.get().submit().isSocketTimeout());
+    }
+
+    @Test
+    public void testRetryBudgetLimitsTheExtraLoad() {
+        AtomicInteger attempts = new AtomicInteger();
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/retrytest/budget")
+                                                     .retryPolicy(RetryPolicy.builder().backoff(0, 0).retryBudget(0.1, 0).build())
+                                                     .loopback(failingUntil(Integer.MAX_VALUE, attempts)).build();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(503, request.get().submit().getStatusCode());
+        }
+        // one retry saved every 10 requests
+        assertEquals(22, attempts.get());
+    }
+
+    @Test
+    public void testBackoffIsJitteredAndCapped() {
+        RetryPolicy policy = RetryPolicy.builder().backoff(100, 1000).build();
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoff(1);
+            long fourth = policy.backoff(4);
+            long tenth = policy.backoff(10);
+            assertTrue(first >= 0 && first <= 100);
+            assertTrue(fourth >= 0 && fourth <= 800);
+            assertTrue(tenth >= 0 && tenth <= 1000);
+        }
+    }
+
+    @Test
+    public void testBackoffEdgeCases() {
+        RetryPolicy noBackoff = RetryPolicy.builder().backoff(0, 1000).build();
+        RetryPolicy huge = RetryPolicy.builder().backoff(100, Long.MAX_VALUE / 2).build();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, noBackoff.backoff(1));
+            assertEquals(0, noBackoff.backoff(10));
+            long retry = huge.backoff(100);
+            assertTrue(retry >= 0 && retry <= Long.MAX_VALUE / 2);
+        }
+        assertEquals(0, RetryPolicy.builder().backoff(0, 0).build().backoff(3));
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().backoff(-1, 100));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().backoff(100, -1));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().backoff(200, 100));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().retryBudget(-0.1));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().retryBudget(1.5));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().retryBudget(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().retryBudget(0.1, -1));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().maxAttempts(0));
+    }
+}
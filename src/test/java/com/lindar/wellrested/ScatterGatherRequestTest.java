@@ -0,0 +1,98 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class ScatterGatherRequestTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/scattertest/fast")).willReturn(aResponse().withStatus(200).withFixedDelay(20).withBody("fast")));
+        stubFor(get(urlEqualTo("/scattertest/medium")).willReturn(aResponse().withStatus(200).withFixedDelay(300).withBody("medium")));
+        stubFor(get(urlEqualTo("/scattertest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(3000).withBody("slow")));
+        stubFor(get(urlEqualTo("/scattertest/error")).willReturn(aResponse().withStatus(500)));
+    }
+
+    @Test
+    public void testFirstValidResponseWins() {
+        List<WellRestedResponse> responses = ScatterGatherRequest.of(Arrays.asList(request("error"), request("slow"), request("fast"))).submit();
+
+        assertEquals(1, responses.size());
+        assertEquals("fast", responses.get(0).getServerResponse());
+    }
+
+    @Test
+    public void testQuorumReturnsInArrivalOrder() {
+        List<WellRestedResponse> responses = ScatterGatherRequest.of(Arrays.asList(request("medium"), request("slow"), request("fast")))
+                                                                 .quorum()
+                                                                 .submit();
+
+        assertEquals(2, responses.size());
+        assertEquals("fast", responses.get(0).getServerResponse());
+        assertEquals("medium", responses.get(1).getServerResponse());
+    }
+
+    @Test
+    public void testDeadlineReturnsPartialResponsesAndCancelsTheRest() {
+        CompletableFuture<WellRestedResponse> slowFuture = new CompletableFuture<>();
+        RequestResource slow = new RequestResource() {
+            @Override
+            public WellRestedResponse submit() {
+                return submitAsync().join();
+            }
+
+            @Override
+            public CompletableFuture<WellRestedResponse> submitAsync() {
+                return slowFuture;
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        List<WellRestedResponse> responses = ScatterGatherRequest.of(Arrays.asList(request("fast"), slow, request("slow")))
+                                                                 .first(3)
+                                                                 .deadline(500)
+                                                                 .submit();
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, responses.size());
+        assertEquals("fast", responses.get(0).getServerResponse());
+        assertTrue(slowFuture.isCancelled());
+    }
+
+    @Test
+    public void testReturnsWhenAllRequestsFailed() {
+        List<WellRestedResponse> responses = ScatterGatherRequest.of(Arrays.asList(request("error"), request("error"))).submit();
+
+        assertTrue(responses.isEmpty());
+    }
+
+    @Test
+    public void testInvalidRequiredResponses() {
+        assertThrows(IllegalArgumentException.class, () -> ScatterGatherRequest.of(Arrays.asList(request("fast"), request("slow"))).first(3));
+    }
+
+    @Test
+    public void testNoRequests() {
+        assertThrows(IllegalArgumentException.class, () -> ScatterGatherRequest.of(Collections.emptyList()));
+    }
+
+    private RequestResource request(String path) {
+        return WellRestedRequest.builder().url("http://localhost:8089/scattertest/" + path).build().get();
+    }
+}
@@ -0,0 +1,134 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shares one WellRestedRequest between many threads while its global headers keep changing
+ */
+public class SharedClientTest {
+    private static final int THREADS             = 8;
+    private static final int REQUESTS_PER_THREAD = 2000;
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private final AtomicInteger torn    = new AtomicInteger();
+
+    private final LoopbackHandler handler = request -> {
+        handled.incrementAndGet();
+        if (!consistent(request)) {
+            torn.incrementAndGet();
+        }
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+        response.setEntity(new StringEntity("ok"));
+        return response;
+    };
+
+    @Test
+    public void testConcurrentRequestsWhileGlobalHeadersChange() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal:8080/sharedtest").loopback(handler).build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS + 1);
+        Future<?> writer = threads.submit(() -> {
+            int version = 0;
+            while (running.get()) {
+                version++;
+                Map<String, String> headers = new LinkedHashMap<>();
+                headers.put("X-Version-A", String.valueOf(version));
+                headers.put("X-Version-B", String.valueOf(version));
+                request.globalHeaders(headers);
+                request.addGlobalHeader("X-Extra", String.valueOf(version));
+                request.clearGlobalHeaders();
+            }
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < THREADS; i++) {
+            boolean async = i % 2 == 0;
+            readers.add(threads.submit(() -> {
+                for (int n = 0; n < REQUESTS_PER_THREAD; n++) {
+                    WellRestedResponse response = async ? request.get().submitAsync().join() : request.get().submit();
+                    if (response.getStatusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - start;
+        running.set(false);
+        writer.get(5, TimeUnit.SECONDS);
+        threads.shutdown();
+
+        assertEquals(0, failures.get());
+        assertEquals(0, torn.get());
+        assertEquals(THREADS * REQUESTS_PER_THREAD, handled.get());
+        System.out.printf("Shared WellRestedRequest: %d requests on %d threads in %d ms (%.0f requests/s)%n", handled.get(), THREADS,
+                          TimeUnit.NANOSECONDS.toMillis(elapsed), handled.get() / (elapsed / 1e9));
+    }
+
+    @Test
+    public void testGlobalHeadersAreASnapshot() {
+        List<Header> headers = new ArrayList<>();
+        WellRestedRequestBuilder builder = WellRestedRequest.builder().url("http://backend.internal:8080/sharedtest").loopback(handler);
+        builder.globalHeaders(headers).addGlobalHeader("X-Version-A", "1");
+        WellRestedRequest request = builder.build();
+
+        builder.addGlobalHeader("X-Version-B", "2");
+        List<Header> snapshot = request.getGlobalHeaders();
+        request.addGlobalHeader("X-Extra", "3");
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, request.getGlobalHeaders().size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(null));
+    }
+
+    @Test
+    public void testAsyncRequestsOnTheSharedClient() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal:8080/sharedtest").loopback(handler)
+                                                     .addGlobalHeader("X-Version-A", "1").addGlobalHeader("X-Version-B", "1").build();
+
+        List<CompletableFuture<WellRestedResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            responses.add(request.get().submitAsync());
+        }
+
+        assertTrue(responses.stream().allMatch(response -> response.join().getStatusCode() == 200));
+        assertEquals(0, torn.get());
+    }
+
+    /**
+     * Both version headers are sent together with the same value, or not at all
+     */
+    private static boolean consistent(ClassicHttpRequest request) {
+        Header versionA = request.getFirstHeader("X-Version-A");
+        Header versionB = request.getFirstHeader("X-Version-B");
+        if (versionA == null || versionB == null) {
+            return versionA == null && versionB == null;
+        }
+        return versionA.getValue().equals(versionB.getValue()) && request.getHeaders("X-Version-A").length == 1;
+    }
+}
@@ -0,0 +1,162 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class SingleFlightTest {
+    private static final int CALLERS = 20;
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/singleflighttest/sync")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("sync")));
+        stubFor(get(urlEqualTo("/singleflighttest/async")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("async")));
+        stubFor(get(urlEqualTo("/singleflighttest/headers")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("headers")));
+        stubFor(get(urlEqualTo("/singleflighttest/instances")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("instances")));
+        stubFor(get(urlEqualTo("/singleflighttest/options")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("options")));
+        stubFor(get(urlEqualTo("/singleflighttest/cancelled")).willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("cancelled")));
+        stubFor(get(urlEqualTo("/singleflighttest/abandoned")).willReturn(aResponse().withStatus(200).withFixedDelay(5000).withBody("abandoned")));
+        stubFor(get(urlEqualTo("/singleflighttest/fast")).willReturn(aResponse().withStatus(200).withBody("fast")));
+        stubFor(get(urlEqualTo("/singleflighttest/disabled")).willReturn(aResponse().withStatus(200).withFixedDelay(200).withBody("disabled")));
+    }
+
+    @Test
+    public void testConcurrentSyncCallersShareOneRequest() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/sync").singleFlight().build();
+
+        List<WellRestedResponse> responses = submitConcurrently(i -> request.get().submit());
+
+        responses.forEach(response -> assertEquals("sync", response.getServerResponse()));
+        verify(1, getRequestedFor(urlEqualTo("/singleflighttest/sync")));
+    }
+
+    @Test
+    public void testConcurrentAsyncCallersShareOneRequest() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/async").singleFlight().build();
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, CALLERS)
+                                                                       .mapToObj(i -> request.get().submitAsync())
+                                                                       .collect(Collectors.toList());
+
+        futures.forEach(future -> assertEquals("async", future.join().getServerResponse()));
+        verify(1, getRequestedFor(urlEqualTo("/singleflighttest/async")));
+        // every caller gets its own response
+        assertNotSame(futures.get(0).join(), futures.get(1).join());
+    }
+
+    @Test
+    public void testRequestsAreOnlySharedWithinAWellRestedRequest() {
+        submitConcurrently(i -> WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/instances").singleFlight().build().get().submit());
+
+        verify(CALLERS, getRequestedFor(urlEqualTo("/singleflighttest/instances")));
+    }
+
+    @Test
+    public void testOptionsSeparateFlights() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/options").singleFlight().build();
+
+        submitConcurrently(i -> i % 2 == 0 ? request.get().submit() : request.get().responseTimeout(5000).submit());
+
+        verify(2, getRequestedFor(urlEqualTo("/singleflighttest/options")));
+    }
+
+    @Test
+    public void testCancelledRequestIsSentAgainForTheWaitingCallers() throws Exception {
+        // a pipelined request waits for its response on the async client, so interrupting the caller cancels it
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/cancelled").pipelining().singleFlight().build();
+
+        CompletableFuture<WellRestedResponse> cancelled = new CompletableFuture<>();
+        Thread leader = new Thread(() -> cancelled.complete(request.get().submit()));
+        leader.start();
+        Thread.sleep(100);
+        CompletableFuture<WellRestedResponse> follower = CompletableFuture.supplyAsync(() -> request.get().submit());
+        Thread.sleep(100);
+        leader.interrupt();
+
+        assertTrue(cancelled.join().isCancelled());
+        assertEquals("cancelled", follower.join().getServerResponse());
+        verify(2, getRequestedFor(urlEqualTo("/singleflighttest/cancelled")));
+    }
+
+    @Test
+    public void testRequestIsCancelledWhenAllCallersCancelled() throws Exception {
+        ConnectionPoolSettings poolSettings = new ConnectionPoolSettings();
+        poolSettings.setMaxConnections(1);
+        poolSettings.setMaxConnectionsPerRoute(1);
+        try (CloseableHttpAsyncClient singleConnectionClient = poolSettings.buildAsyncHttpClient()) {
+            WellRestedRequest abandoned = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/abandoned")
+                                                           .customAsyncHttpClient(singleConnectionClient).singleFlight().build();
+            WellRestedRequest fast = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/fast")
+                                                      .customAsyncHttpClient(singleConnectionClient).build();
+            assertEquals(200, fast.get().submitAsync().get(2, TimeUnit.SECONDS).getStatusCode());
+
+            CompletableFuture<WellRestedResponse> leader = abandoned.get().submitAsync();
+            CompletableFuture<WellRestedResponse> follower = abandoned.get().submitAsync();
+            Thread.sleep(200);
+
+            assertTrue(leader.cancel(true));
+            Thread.sleep(100);
+            assertFalse(follower.isDone());
+
+            assertTrue(follower.cancel(true));
+            // the pool has a single connection, the abandoned exchange must give it back
+            assertEquals("fast", fast.get().submitAsync().get(2, TimeUnit.SECONDS).getServerResponse());
+        }
+    }
+
+    @Test
+    public void testKeyHeadersSeparateFlights() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/headers").singleFlight("X-Tenant").build();
+
+        submitConcurrently(i -> request.get()
+                                       .headers(Collections.singletonMap("X-Tenant", i % 2 == 0 ? "even" : "odd"))
+                                       .submit());
+
+        verify(2, getRequestedFor(urlEqualTo("/singleflighttest/headers")));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/singleflighttest/disabled").build();
+
+        submitConcurrently(i -> request.get().submit());
+
+        verify(CALLERS, getRequestedFor(urlEqualTo("/singleflighttest/disabled")));
+    }
+
+    private List<WellRestedResponse> submitConcurrently(IntFunction<WellRestedResponse> call) {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, CALLERS)
+                                                                           .mapToObj(i -> CompletableFuture.supplyAsync(() -> call.apply(i), executor))
+                                                                           .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
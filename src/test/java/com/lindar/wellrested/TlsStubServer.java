@@ -0,0 +1,117 @@
+package com.lindar.wellrested;
+
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsExchange;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local https server answering every request with {@code ok}, with a self-signed certificate for {@code localhost}
+ * generated by keytool on start. {@link #clientSslContext()} trusts that certificate.
+ */
+public class TlsStubServer implements AutoCloseable {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    static {
+        // the server writes the headers and the body of the response separately
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpsServer     server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final KeyStore        keyStore;
+
+    private volatile String lastProtocol;
+
+    private TlsStubServer(KeyStore keyStore) throws IOException, GeneralSecurityException {
+        this.keyStore = keyStore;
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagers.getKeyManagers(), null, null);
+
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(serverContext));
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            lastProtocol = ((HttpsExchange) exchange).getSSLSession().getProtocol();
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public static TlsStubServer start() throws IOException, GeneralSecurityException, InterruptedException {
+        Path directory = Files.createTempDirectory("tls-stub");
+        File keyStoreFile = directory.resolve("localhost.p12").toFile();
+        String keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool").toString();
+        Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "localhost", "-keyalg", "RSA", "-keysize", "2048",
+                                             "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-validity", "1",
+                                             "-storetype", "PKCS12", "-keystore", keyStoreFile.getPath(),
+                                             "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true)
+                .start();
+        if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            throw new IOException("keytool failed to generate the certificate");
+        }
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        } finally {
+            keyStoreFile.delete();
+            directory.toFile().delete();
+        }
+        return new TlsStubServer(keyStore);
+    }
+
+    public String url(String path) {
+        return "https://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * A new client TLS context trusting the certificate of the server, with its own session cache
+     */
+    public SSLContext clientSslContext() throws GeneralSecurityException {
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trustManagers.getTrustManagers(), null);
+        return clientContext;
+    }
+
+    /**
+     * The TLS protocol of the last request received
+     */
+    public String getLastProtocol() {
+        return lastProtocol;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,73 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class TlsTest {
+    private static TlsStubServer server;
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        server = TlsStubServer.start();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testSyncAndAsyncRequestsShareTheSessionCache() throws Exception {
+        SSLContext sslContext = server.clientSslContext();
+        WellRestedRequest request = WellRestedRequest.builder()
+                                                     .url(server.url("/tlstest"))
+                                                     .sslContext(sslContext)
+                                                     .tlsSessionCacheSize(10)
+                                                     .tlsSessionTimeout(60)
+                                                     .build();
+
+        WellRestedResponse response = request.get().submit();
+        WellRestedResponse asyncResponse = request.get().submitAsync().join();
+
+        assertEquals("ok", response.getServerResponse());
+        assertEquals("ok", asyncResponse.getServerResponse());
+        SSLSessionContext sessions = sslContext.getClientSessionContext();
+        assertEquals(10, sessions.getSessionCacheSize());
+        assertEquals(60, sessions.getSessionTimeout());
+        assertFalse(Collections.list(sessions.getIds()).isEmpty());
+    }
+
+    @Test
+    public void testEnabledProtocols() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder()
+                                                     .url(server.url("/tlstest"))
+                                                     .sslContext(server.clientSslContext())
+                                                     .tlsProtocols("TLSv1.2")
+                                                     .build();
+
+        assertEquals(200, request.get().submit().getStatusCode());
+        assertEquals("TLSv1.2", server.getLastProtocol());
+        assertEquals(200, request.get().submitAsync().join().getStatusCode());
+        assertEquals("TLSv1.2", server.getLastProtocol());
+    }
+
+    @Test
+    public void testTlsProvider() throws Exception {
+        ConnectionPoolSettings settings = new ConnectionPoolSettings();
+        settings.setTlsProvider("SunJSSE");
+        assertEquals("SunJSSE", settings.tlsContext().getProvider().getName());
+
+        ConnectionPoolSettings missingProvider = new ConnectionPoolSettings();
+        missingProvider.setTlsProvider("NoSuchProvider");
+        assertEquals(SSLContext.getDefault().getProvider().getName(), missingProvider.tlsContext().getProvider().getName());
+    }
+}
@@ -0,0 +1,159 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class TokenProviderTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(post(urlEqualTo("/tokentest/oauth2/token")).withBasicAuth("client", "secret")
+                                                           .willReturn(aResponse().withStatus(200).withHeader("Content-Type", "application/json")
+                                                                                  .withBody("{\"access_token\":\"token-1\",\"token_type\":\"Bearer\",\"expires_in\":3600}")));
+        stubFor(get(urlEqualTo("/tokentest/orders")).withHeader("Authorization", equalTo("Bearer token-1"))
+                                                    .willReturn(aResponse().withStatus(200).withBody("orders")));
+        stubFor(get(urlEqualTo("/tokentest/async")).withHeader("Authorization", equalTo("Bearer async"))
+                                                   .willReturn(aResponse().withStatus(200).withBody("async")));
+    }
+
+    /**
+     * Answers with the Authorization header it received
+     */
+    private static final LoopbackHandler ECHO_AUTHORIZATION = request -> {
+        BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+        response.setEntity(new StringEntity(request.getFirstHeader("Authorization").getValue()));
+        return response;
+    };
+
+    @Test
+    public void testClientCredentialsTokenIsCachedAndSent() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/tokentest/orders")
+                                                     .tokenProvider(new ClientCredentialsTokenProvider("http://localhost:8089/tokentest/oauth2/token", "client", "secret", "orders:read"))
+                                                     .build();
+
+        assertEquals("orders", request.get().submit().getServerResponse());
+        assertEquals("orders", request.get().submit().getServerResponse());
+        assertEquals("orders", request.get().submitAsync().join().getServerResponse());
+        assertEquals("orders", request.get().prepare().submit().getServerResponse());
+
+        verify(1, postRequestedFor(urlEqualTo("/tokentest/oauth2/token")).withRequestBody(equalTo("grant_type=client_credentials&scope=orders%3Aread")));
+        verify(4, getRequestedFor(urlEqualTo("/tokentest/orders")).withHeader("Authorization", containing("Bearer")));
+    }
+
+    @Test
+    public void testConcurrentRequestsWaitForOneRefresh() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch waiting = new CountDownLatch(1);
+        TokenProvider provider = () -> {
+            fetches.incrementAndGet();
+            try {
+                waiting.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return AccessToken.expiringIn("shared", 3600);
+        };
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/tokentest/concurrent")
+                                                     .tokenProvider(provider).loopback(ECHO_AUTHORIZATION).build();
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<WellRestedResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(threads.submit(() -> request.get().submit()));
+        }
+        Thread.sleep(200);
+        waiting.countDown();
+        for (Future<WellRestedResponse> response : responses) {
+            assertEquals("Bearer shared", response.get(10, TimeUnit.SECONDS).getServerResponse());
+        }
+        threads.shutdown();
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    public void testSubmitAsyncDoesNotWaitForTheToken() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        TokenProvider provider = () -> {
+            try {
+                fetching.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return AccessToken.expiringIn("async", 3600);
+        };
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/tokentest/async").tokenProvider(provider).build();
+
+        long start = System.currentTimeMillis();
+        CompletableFuture<WellRestedResponse> future = request.get().submitAsync();
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertFalse(future.isDone());
+
+        fetching.countDown();
+        assertEquals("async", future.get(5, TimeUnit.SECONDS).getServerResponse());
+    }
+
+    @Test
+    public void testTokenIsRefreshedInTheBackgroundAheadOfExpiry() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        TokenProvider provider = () -> AccessToken.expiringIn("token-" + fetches.incrementAndGet(), 2);
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/tokentest/refresh")
+                                                     .tokenProvider(provider, 1000).loopback(ECHO_AUTHORIZATION).build();
+
+        assertEquals("Bearer token-1", request.get().submit().getServerResponse());
+        for (int i = 0; i < 50 && fetches.get() < 2; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(fetches.get() >= 2);
+        assertNotEquals("Bearer token-1", request.get().submit().getServerResponse());
+        request.close();
+    }
+
+    @Test
+    public void testFailedFetchReturnsAnErrorResponse() {
+        AtomicInteger fetches = new AtomicInteger();
+        TokenProvider provider = () -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new IOException("The token endpoint is down");
+            }
+            return AccessToken.neverExpiring("recovered");
+        };
+        WellRestedRequest request = WellRestedRequest.builder().url("http://backend.internal/tokentest/failure")
+                                                     .tokenProvider(provider).loopback(ECHO_AUTHORIZATION).build();
+
+        assertEquals(500, request.get().submit().getStatusCode());
+        assertEquals("Bearer recovered", request.get().submit().getServerResponse());
+        assertEquals("Basic own", request.get().headers(Collections.singletonMap("Authorization", "Basic own")).submit().getServerResponse());
+    }
+}
@@ -0,0 +1,152 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(TestEnvironment.class)
+public class TrafficClassTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/trafficclasstest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(200).withBody("slow")));
+    }
+
+    @Test
+    public void testWaitingRequestsAreServedByPriority() {
+        LeaseScheduler scheduler = new LeaseScheduler(1, Collections.emptyMap());
+        CompletableFuture<Void> running = scheduler.acquire(TrafficClass.BATCH);
+        CompletableFuture<Void> batch = scheduler.acquire(TrafficClass.BATCH);
+        CompletableFuture<Void> regular = scheduler.acquire(TrafficClass.DEFAULT);
+        CompletableFuture<Void> interactive = scheduler.acquire(TrafficClass.INTERACTIVE);
+        assertTrue(running.isDone());
+
+        scheduler.release(TrafficClass.BATCH);
+        assertTrue(interactive.isDone());
+        assertFalse(regular.isDone());
+
+        scheduler.release(TrafficClass.INTERACTIVE);
+        assertTrue(regular.isDone());
+        assertFalse(batch.isDone());
+
+        scheduler.release(TrafficClass.DEFAULT);
+        assertTrue(batch.isDone());
+    }
+
+    @Test
+    public void testReservedConnectionsAreKeptForTheirClass() {
+        Map<TrafficClass, Integer> reserved = new EnumMap<>(TrafficClass.class);
+        reserved.put(TrafficClass.INTERACTIVE, 2);
+        reserved.put(TrafficClass.BATCH, 1);
+        LeaseScheduler scheduler = new LeaseScheduler(4, reserved);
+
+        assertTrue(scheduler.acquire(TrafficClass.INTERACTIVE).isDone());
+        assertTrue(scheduler.acquire(TrafficClass.INTERACTIVE).isDone());
+        assertTrue(scheduler.acquire(TrafficClass.DEFAULT).isDone());
+        assertTrue(scheduler.acquire(TrafficClass.DEFAULT).isDone());
+        CompletableFuture<Void> regular = scheduler.acquire(TrafficClass.DEFAULT);
+        CompletableFuture<Void> batch = scheduler.acquire(TrafficClass.BATCH);
+
+        // the free connection goes to the waiting batch job, which is under its reservation
+        scheduler.release(TrafficClass.DEFAULT);
+        assertFalse(regular.isDone());
+        assertTrue(batch.isDone());
+    }
+
+    @Test
+    public void testIdleReservedConnectionsAreLent() {
+        Map<TrafficClass, Integer> reserved = new EnumMap<>(TrafficClass.class);
+        reserved.put(TrafficClass.INTERACTIVE, 2);
+        reserved.put(TrafficClass.BATCH, 1);
+        LeaseScheduler scheduler = new LeaseScheduler(4, reserved);
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batches.add(scheduler.acquire(TrafficClass.BATCH));
+        }
+        // no interactive request needs its reserved connections
+        assertEquals(4, batches.stream().filter(CompletableFuture::isDone).count());
+
+        CompletableFuture<Void> firstInteractive = scheduler.acquire(TrafficClass.INTERACTIVE);
+        CompletableFuture<Void> secondInteractive = scheduler.acquire(TrafficClass.INTERACTIVE);
+        assertFalse(firstInteractive.isDone());
+
+        // the lent connections come back to the interactive requests first
+        scheduler.release(TrafficClass.BATCH);
+        assertTrue(firstInteractive.isDone());
+        scheduler.release(TrafficClass.BATCH);
+        assertTrue(secondInteractive.isDone());
+        assertEquals(4, batches.stream().filter(CompletableFuture::isDone).count());
+
+        scheduler.release(TrafficClass.BATCH);
+        assertEquals(5, batches.stream().filter(CompletableFuture::isDone).count());
+    }
+
+    @Test
+    public void testCancelledWaiterGivesUpItsPlace() {
+        LeaseScheduler scheduler = new LeaseScheduler(1, Collections.emptyMap());
+        scheduler.acquire(TrafficClass.DEFAULT);
+        CompletableFuture<Void> cancelled = scheduler.acquire(TrafficClass.INTERACTIVE);
+        CompletableFuture<Void> waiting = scheduler.acquire(TrafficClass.BATCH);
+
+        cancelled.cancel(false);
+        scheduler.release(TrafficClass.DEFAULT);
+        assertTrue(waiting.isDone());
+    }
+
+    @Test
+    public void testReservationsMustFitTheRoute() {
+        assertThrows(IllegalArgumentException.class, () -> WellRestedRequest.builder().url("http://localhost:8089/trafficclasstest/slow")
+                                                                            .maxConnectionsPerRoute(2)
+                                                                            .reserveConnections(TrafficClass.INTERACTIVE, 2)
+                                                                            .reserveConnections(TrafficClass.BATCH, 1)
+                                                                            .build());
+    }
+
+    @Test
+    public void testInteractiveRequestOvertakesQueuedBatchJobs() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/trafficclasstest/slow")
+                                                     .maxConnectionsPerRoute(1).prioritizeLeases().build();
+
+        List<TrafficClass> completed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(request.get().trafficClass(TrafficClass.BATCH).submitAsync().thenAccept(response -> completed.add(TrafficClass.BATCH)));
+        }
+        futures.add(request.get().trafficClass(TrafficClass.INTERACTIVE).submitAsync().thenAccept(response -> completed.add(TrafficClass.INTERACTIVE)));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(TrafficClass.INTERACTIVE, completed.get(1));
+    }
+
+    @Test
+    public void testWaitingLongerThanTheConnectionRequestTimeout() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/trafficclasstest/slow")
+                                                     .maxConnectionsPerRoute(1).prioritizeLeases().build();
+
+        CompletableFuture<WellRestedResponse> holding = request.get().submitAsync();
+        Thread.sleep(50);
+
+        assertTrue(request.get().connectionRequestTimeout(50).submit().isConnectionRequestTimeout());
+        assertTrue(request.get().connectionRequestTimeout(50).submitAsync().join().isConnectionRequestTimeout());
+        assertEquals("slow", holding.join().getServerResponse());
+        assertEquals("slow", request.get().trafficClass(TrafficClass.BATCH).submit().getServerResponse());
+    }
+}
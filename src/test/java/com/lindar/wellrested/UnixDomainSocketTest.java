@@ -0,0 +1,151 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.ProtocolFamily;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a local server listening on a unix domain socket, skipped before Java 16
+ */
+public class UnixDomainSocketTest {
+    private static Path              socketPath;
+    private static ChannelHttpServer server;
+
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void startServer() throws Exception {
+        assumeTrue(UnixDomainSockets.isSupported());
+        socketPath = Files.createTempDirectory("well-rested").resolve("sidecar.sock");
+        server = ChannelHttpServer.unixDomainSocket(socketPath);
+    }
+
+    @AfterAll
+    public static void stopServer() throws Exception {
+        if (server != null) {
+            server.close();
+            Files.deleteIfExists(socketPath.getParent());
+        }
+    }
+
+    @Test
+    public void testGetUsesUriForHostAndPath() {
+        WellRestedResponse response = builder.url("http://sidecar.internal/udstest/get").unixDomainSocket(socketPath).build().get().submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("GET /udstest/get sidecar.internal", response.getServerResponse());
+    }
+
+    @Test
+    public void testPost() {
+        WellRestedResponse response = builder.url("http://sidecar.internal:8080/udstest/post").unixDomainSocket(socketPath).build().post().jsonContent("{}").submit();
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("POST /udstest/post sidecar.internal:8080 {}", response.getServerResponse());
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        WellRestedRequest request = builder.url("http://sidecar.internal/udstest/reuse").unixDomainSocket(socketPath).build();
+        int connectionsBefore = server.getAcceptedConnections();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, request.get().submit().getStatusCode());
+        }
+        assertEquals(200, request.get().submitAsync().get(2, TimeUnit.SECONDS).getStatusCode());
+
+        assertEquals(1, server.getAcceptedConnections() - connectionsBefore);
+    }
+
+    @Test
+    public void testSocketTimeout() {
+        WellRestedResponse response = builder.url("http://sidecar.internal/udstest/slow").unixDomainSocket(socketPath).responseTimeout(300).build().get().submit();
+
+        assertTrue(response.isSocketTimeout());
+    }
+
+    @Test
+    public void testWriteTimeout() throws Exception {
+        Path unreadPath = socketPath.resolveSibling("unread.sock");
+        // the server never accepts the connection so nothing reads the request and the client fills the socket buffer
+        try (ServerSocketChannel unread = bind(unreadPath, 10)) {
+            WellRestedResponse response = new WellRestedRequestBuilder().url("http://sidecar.internal/udstest/unread").unixDomainSocket(unreadPath)
+                                                                        .responseTimeout(300).build()
+                                                                        .post().jsonContent("\"" + new String(new char[16 * 1024 * 1024]).replace('\0', 'x') + "\"")
+                                                                        .submit();
+
+            assertTrue(response.isSocketTimeout());
+        } finally {
+            Files.deleteIfExists(unreadPath);
+        }
+    }
+
+    @Test
+    public void testConnectTimeout() throws Exception {
+        Path fullPath = socketPath.resolveSibling("full.sock");
+        List<SocketChannel> queued = new ArrayList<>();
+        try (ServerSocketChannel full = bind(fullPath, 1)) {
+            // fills the backlog of the server, which never accepts, so the next connect waits
+            for (int i = 0; i < 10 && queued.size() == i; i++) {
+                try {
+                    queued.add(UnixDomainSockets.connect(fullPath, 200));
+                } catch (SocketTimeoutException ex) {
+                    // the backlog is full
+                }
+            }
+            assumeTrue(queued.size() < 10, "the backlog of the server never filled up");
+
+            long start = System.currentTimeMillis();
+            WellRestedResponse response = new WellRestedRequestBuilder().url("http://sidecar.internal/udstest/full").unixDomainSocket(fullPath)
+                                                                        .connectionTimeout(300).build().get().submit();
+
+            assertTrue(response.isConnectionTimeout());
+            assertTrue(System.currentTimeMillis() - start < 2000);
+        } finally {
+            for (SocketChannel channel : queued) {
+                channel.close();
+            }
+            Files.deleteIfExists(fullPath);
+        }
+    }
+
+    @Test
+    public void testCancelReleasesConnection() throws Exception {
+        WellRestedRequest request = builder.url("http://sidecar.internal/udstest/slow").unixDomainSocket(socketPath).build();
+
+        CompletableFuture<WellRestedResponse> future = request.get().submitAsync();
+        Thread.sleep(200);
+        assertEquals(1, request.getPoolStats().getLeased());
+        assertTrue(future.cancel(true));
+
+        // the interrupted read closes the connection and gives back its lease well before the server answers
+        long deadline = System.currentTimeMillis() + 1000;
+        while (request.getPoolStats().getLeased() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, request.getPoolStats().getLeased());
+    }
+
+    private static ServerSocketChannel bind(Path path, int backlog) throws Exception {
+        ServerSocketChannel serverChannel = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+                                                                                         .invoke(null, UnixDomainSockets.protocolFamily());
+        serverChannel.bind(UnixDomainSockets.address(path), backlog);
+        return serverChannel;
+    }
+}
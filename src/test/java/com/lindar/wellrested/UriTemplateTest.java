@@ -0,0 +1,72 @@
+package com.lindar.wellrested;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.URI;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(TestEnvironment.class)
+public class UriTemplateTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlPathMatching("/templatetest/users/.*")).willReturn(aResponse().withStatus(200).withBody("user")));
+        stubFor(post(urlEqualTo("/templatetest/users/7/posts")).willReturn(aResponse().withStatus(201)));
+    }
+
+    @Test
+    public void testExpandJoinsTheBasePath() {
+        assertEquals("http://api.example.com/v1/users/42", UriTemplate.compile(URI.create("http://api.example.com/v1"), "/users/{id}").expand(42));
+        assertEquals("http://api.example.com/v1/users/42", UriTemplate.compile(URI.create("http://api.example.com/v1/"), "/users/{id}").expand(42));
+        assertEquals("http://api.example.com/v1/users/42", UriTemplate.compile(URI.create("http://api.example.com/v1"), "users/{id}").expand(42));
+        assertEquals("http://api.example.com:8080/users?page=2", UriTemplate.compile(URI.create("http://api.example.com:8080?key=1"), "/users?page={page}").expand(2));
+        assertEquals("http://api.example.com/v1", UriTemplate.compile(URI.create("http://api.example.com/v1"), "").expand());
+    }
+
+    @Test
+    public void testExpandEncodesPathAndQueryValues() {
+        UriTemplate template = UriTemplate.compile(URI.create("http://api.example.com"), "/files/{name}?q={query}&tag={tag}");
+
+        assertEquals("http://api.example.com/files/a%20b%2Fc?q=x%26y%3Dz%20%C3%A9&tag=a%2Bb:c/d", template.expand("a b/c", "x&y=z é", "a+b:c/d"));
+        assertEquals("http://api.example.com/files/a+b@c?q=1&tag=plain", template.expand("a+b@c", 1, "plain"));
+    }
+
+    @Test
+    public void testInvalidTemplatesAndValues() {
+        URI base = URI.create("http://api.example.com");
+
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile(base, "/users/{id"));
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile(base, "/users/{id}").expand());
+        assertThrows(IllegalArgumentException.class, () -> UriTemplate.compile(base, "/users/{id}").expand((Object) null));
+    }
+
+    @Test
+    public void testRequestsToTemplatesShareThePool() {
+        WellRestedRequest api = WellRestedRequest.builder().url("http://localhost:8089/templatetest").maxConnections(5)
+                                                 .addGlobalHeader("X-Client", "templates").build();
+
+        assertEquals("user", api.get("/users/{id}", 1).submit().getServerResponse());
+        assertEquals("user", api.get("/users/{id}?fields={fields}", "j doe", "name,email").submitAsync().join().getServerResponse());
+        assertEquals(201, api.post("/users/{id}/posts", 7).jsonContent("{}").submit().getStatusCode());
+
+        verify(getRequestedFor(urlEqualTo("/templatetest/users/1")).withHeader("X-Client", equalTo("templates")));
+        verify(getRequestedFor(urlEqualTo("/templatetest/users/j%20doe?fields=name,email")));
+        assertEquals(1, api.getPoolStats().getAvailable());
+
+        api.close();
+        assertThrows(IllegalStateException.class, () -> api.get("/users/{id}", 2).submit());
+    }
+}
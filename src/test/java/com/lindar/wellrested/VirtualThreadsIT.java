@@ -0,0 +1,97 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs with failsafe against the multi-release jar when building with JDK 21+ (see the java21 profile)
+ */
+@ExtendWith(TestEnvironment.class)
+public class VirtualThreadsIT {
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/virtualtest/it")).willReturn(aResponse().withStatus(200).withFixedDelay(50).withBody("Virtual Test: Success")));
+    }
+
+    @Test
+    public void testSubmitAsyncRunsOnVirtualThreads() throws Exception {
+        assertTrue(VirtualThreads.isSupported());
+
+        ConcurrentHashMap.KeySetView<Thread, Boolean> blockingThreads = ConcurrentHashMap.newKeySet();
+        WellRestedRequest request = builder.url("http://localhost:8089/virtualtest/it")
+                                           .virtualThreads()
+                                           .customHttpClient(HttpClientBuilder.create()
+                                                                              .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                                                                                                             .setMaxConnTotal(100)
+                                                                                                                             .setMaxConnPerRoute(100)
+                                                                                                                             .build())
+                                                                              .addRequestInterceptorFirst((httpRequest, entity, context) -> blockingThreads.add(Thread.currentThread()))
+                                                                              .build())
+                                           .build();
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 100)
+                                                                       .mapToObj(i -> request.get().submitAsync())
+                                                                       .collect(Collectors.toList());
+
+        futures.forEach(future -> assertEquals(200, future.join().getStatusCode()));
+        assertEquals(100, blockingThreads.size());
+        for (Thread thread : blockingThreads) {
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        }
+    }
+
+    @Test
+    public void testWaitingForAConnectionDoesNotPin() throws Exception {
+        WellRestedRequest request = builder.url("http://localhost:8089/virtualtest/it")
+                                           .virtualThreads()
+                                           .maxConnectionsPerRoute(2)
+                                           .build();
+
+        List<RecordedEvent> pinnedEvents;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.start();
+
+            List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 50)
+                                                                           .mapToObj(i -> request.get().submitAsync())
+                                                                           .collect(Collectors.toList());
+            futures.forEach(future -> assertEquals(200, future.join().getStatusCode()));
+
+            recording.stop();
+            Path file = Files.createTempFile("virtual-threads-it", ".jfr");
+            try {
+                recording.dump(file);
+                pinnedEvents = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        assertTrue(pinnedEvents.isEmpty(), () -> "Virtual threads pinned while waiting for a connection: " + pinnedEvents);
+    }
+}
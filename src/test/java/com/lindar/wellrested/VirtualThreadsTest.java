@@ -0,0 +1,52 @@
+package com.lindar.wellrested;
+
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Surefire runs against target/classes, which only contain the Java 8 layer, so virtualThreads() must fall back to the async client.
+ * The Java 21 layer is covered by {@link VirtualThreadsIT} which runs against the multi-release jar.
+ */
+@ExtendWith(TestEnvironment.class)
+public class VirtualThreadsTest {
+    private final WellRestedRequestBuilder builder = new WellRestedRequestBuilder();
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/virtualtest/first")).willReturn(aResponse().withStatus(200).withBody("Virtual Test: Success")));
+    }
+
+    @Test
+    public void testVirtualThreadsFallBackToAsyncClient() {
+        AtomicReference<Thread> blockingThread = new AtomicReference<>();
+        WellRestedRequest request = builder.url("http://localhost:8089/virtualtest/first")
+                                           .virtualThreads()
+                                           .customHttpClient(HttpClientBuilder.create()
+                                                                              .addRequestInterceptorFirst((httpRequest, entity, context) -> blockingThread.set(Thread.currentThread()))
+                                                                              .build())
+                                           .build();
+
+        List<CompletableFuture<WellRestedResponse>> futures = IntStream.range(0, 10)
+                                                                       .mapToObj(i -> request.get().submitAsync())
+                                                                       .collect(Collectors.toList());
+
+        futures.forEach(future -> assertEquals("Virtual Test: Success", future.join().getServerResponse()));
+        assertNull(blockingThread.get());
+    }
+}
@@ -0,0 +1,70 @@
+package com.lindar.wellrested;
+
+import org.apache.hc.core5.pool.PoolStats;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(TestEnvironment.class)
+public class WarmUpTest {
+
+    @BeforeAll
+    public static void setupTests() {
+        stubFor(get(urlEqualTo("/warmuptest/probe")).willReturn(aResponse().withStatus(200).withBody("ready")));
+        stubFor(get(urlEqualTo("/warmuptest/connections")).willReturn(aResponse().withStatus(200).withBody("ready")));
+        stubFor(get(urlEqualTo("/warmuptest/shared")).willReturn(aResponse().withStatus(200).withBody("ready")));
+    }
+
+    @Test
+    public void testOpensConnectionsAndSendsProbe() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/warmuptest/probe").maxConnectionsPerRoute(10).build();
+
+        PoolStats stats = request.warmUp(4, true).get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, stats.getAvailable());
+        assertEquals(0, stats.getLeased());
+        verify(1, getRequestedFor(urlEqualTo("/warmuptest/probe")));
+    }
+
+    @Test
+    public void testConnectionsCappedToTheRouteLimit() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/warmuptest/connections").maxConnectionsPerRoute(3).build();
+
+        PoolStats stats = request.warmUp(10).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, stats.getAvailable());
+        verify(0, getRequestedFor(urlEqualTo("/warmuptest/connections")));
+
+        // the warm connections are reused by the requests
+        assertEquals("ready", request.get().submit().getServerResponse());
+        assertEquals(3, request.getPoolStats().getAvailable());
+    }
+
+    @Test
+    public void testWithoutOwnPoolOnlyTheProbeIsSent() throws Exception {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:8089/warmuptest/shared").build();
+
+        assertNull(request.warmUp(5, true).get(5, TimeUnit.SECONDS));
+        verify(1, getRequestedFor(urlEqualTo("/warmuptest/shared")));
+    }
+
+    @Test
+    public void testFailsWhenConnectionsCannotBeOpened() {
+        WellRestedRequest request = WellRestedRequest.builder().url("http://localhost:1/warmuptest/down").connectionTimeout(1000).maxConnections(5).build();
+
+        assertThrows(ExecutionException.class, () -> request.warmUp(2).get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,92 @@
+package com.lindar.wellrested.benchmark;
+
+import com.lindar.wellrested.LoopbackHandler;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.client5.http.fluent.Request;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bytes allocated per request by the blocking client, run it with the GC profiler:
+ * <pre>
+ * java -jar benchmarks.jar AllocationBenchmark -prof gc
+ * </pre>
+ * and compare {@code gc.alloc.rate.norm}. The requests are answered by an in-process {@link LoopbackHandler} so only the client allocates.
+ * The fluent benchmarks send the same requests through {@link WellRestedRequest#submitRequest}, which goes through the fluent API.
+ * {@link AllocationBudgetTest} fails the build when the direct requests allocate more than their budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AllocationBenchmark {
+    static final String URL = "http://backend.internal/benchmark/allocation";
+
+    private WellRestedRequest request;
+    private WellRestedRequest authenticatedRequest;
+    private URI               uri;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LoopbackHandler handler = httpRequest -> {
+            if (httpRequest.getEntity() != null) {
+                EntityUtils.consume(httpRequest.getEntity());
+            }
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+            response.addHeader("X-Request-Id", "1");
+            response.setEntity(new StringEntity("{\"id\":1}", ContentType.APPLICATION_JSON));
+            return response;
+        };
+        request = WellRestedRequest.builder().url(URL).addGlobalHeader("X-Client", "benchmark").loopback(handler).build();
+        authenticatedRequest = WellRestedRequest.builder().url(URL).credentials("user", "secret").loopback(handler).build();
+        uri = URI.create(URL);
+    }
+
+    @Benchmark
+    public WellRestedResponse get() {
+        return request.get().submit();
+    }
+
+    @Benchmark
+    public WellRestedResponse getFluent() {
+        return request.submitRequest(Request.create(Method.GET, uri), null, null);
+    }
+
+    @Benchmark
+    public WellRestedResponse getWithCredentials() {
+        return authenticatedRequest.get().submit();
+    }
+
+    @Benchmark
+    public WellRestedResponse getWithCredentialsFluent() {
+        return authenticatedRequest.submitRequest(Request.create(Method.GET, uri), null, null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AllocationBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.lindar.wellrested.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the direct requests of {@link AllocationBenchmark} with the GC profiler and fails if they allocate more bytes per request
+ * than their budget. The budgets are about 15% above the allocations measured when they were set, lower them when the client gets leaner.
+ * <br/>
+ * The benchmark runs in the test JVM so it works with the surefire classpath. The allocations depend on the JVM version and flags
+ * of that JVM, so it only runs with the benchmark profile.
+ */
+@Tag("benchmark")
+public class AllocationBudgetTest {
+    private static final Map<String, Double> BYTES_PER_REQUEST_BUDGET = new HashMap<>();
+
+    static {
+        BYTES_PER_REQUEST_BUDGET.put("get", 19_000d);
+        BYTES_PER_REQUEST_BUDGET.put("getWithCredentials", 19_000d);
+    }
+
+    @Test
+    public void testBytesAllocatedPerRequest() throws RunnerException {
+        Options options = new OptionsBuilder().include(AllocationBenchmark.class.getName() + "\\.(" + String.join("|", BYTES_PER_REQUEST_BUDGET.keySet()) + ")$")
+                                              .addProfiler(GCProfiler.class)
+                                              .forks(0)
+                                              .warmupIterations(3)
+                                              .warmupTime(TimeValue.seconds(1))
+                                              .measurementIterations(3)
+                                              .measurementTime(TimeValue.seconds(1))
+                                              .shouldFailOnError(true)
+                                              .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            double bytesPerRequest = allocatedBytesPerOperation(result);
+            double budget = BYTES_PER_REQUEST_BUDGET.get(name);
+            assertTrue(bytesPerRequest <= budget, name + " allocates " + Math.round(bytesPerRequest) + " bytes per request, the budget is " + Math.round(budget));
+        }
+    }
+
+    /**
+     * The name of the result has a prefix that changed between JMH versions
+     */
+    private static double allocatedBytesPerOperation(RunResult result) {
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                return secondary.getValue().getScore();
+            }
+        }
+        return fail("The GC profiler didn't report the allocation rate of " + result.getParams().getBenchmark());
+    }
+}
@@ -0,0 +1,90 @@
+package com.lindar.wellrested.benchmark;
+
+import com.lindar.wellrested.LoopbackHandler;
+import com.lindar.wellrested.PreparedRequest;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.model.PHEntry;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the client itself (request assembly, response mapping and JSON conversion)
+ * by sending the requests to an in-process {@link LoopbackHandler} instead of a server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClientOverheadBenchmark {
+    private static final String JSON_ENTRY = "{\"userId\":1,\"id\":2,\"title\":\"loopback\",\"body\":\"no sockets\"}";
+
+    private WellRestedRequest request;
+    private PHEntry           entry;
+    private PreparedRequest   preparedGet;
+    private PreparedRequest   preparedPost;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        LoopbackHandler handler = httpRequest -> {
+            if (httpRequest.getEntity() != null) {
+                EntityUtils.consume(httpRequest.getEntity());
+            }
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+            response.setEntity(new StringEntity(JSON_ENTRY, ContentType.APPLICATION_JSON));
+            return response;
+        };
+        request = WellRestedRequest.builder().url("http://backend.internal/benchmark/entry").loopback(handler).build();
+        entry = PHEntry.builder().userId(1).id(2).title("loopback").body("no sockets").build();
+        preparedGet = request.get().prepare();
+        preparedPost = request.post().jsonContent(entry).prepare();
+    }
+
+    @Benchmark
+    public PHEntry getJson() {
+        return request.get().submit().fromJson().castTo(PHEntry.class);
+    }
+
+    @Benchmark
+    public PHEntry getJsonTemplate() {
+        return request.get("/users/{id}/entries?page={page}", 42, 3).submit().fromJson().castTo(PHEntry.class);
+    }
+
+    @Benchmark
+    public int postJson() {
+        return request.post().jsonContent(entry).submit().getStatusCode();
+    }
+
+    @Benchmark
+    public PHEntry getJsonPrepared() {
+        return preparedGet.submit().fromJson().castTo(PHEntry.class);
+    }
+
+    @Benchmark
+    public int postJsonPrepared() {
+        return preparedPost.submit().getStatusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ClientOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.lindar.wellrested.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.apache.hc.core5.http.Method;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Compares the throughput of a burst of slow requests submitted through:
+ * <ul>
+ * <li>platform - a fixed pool of platform threads calling the blocking submit()</li>
+ * <li>virtual - submitAsync() with the virtualThreads() option (falls back to the async client before Java 21)</li>
+ * <li>async - submitAsync() on the async client</li>
+ * </ul>
+ * Run the main method from the test classpath, on JDK 21 against the packaged multi-release jar for the virtual mode to apply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+    private static final int BURST_SIZE = 500;
+
+    @Param({"platform", "virtual", "async"})
+    public String mode;
+
+    @Param({"50"})
+    public int platformThreads;
+
+    private WireMockServer    server;
+    private WellRestedRequest request;
+    private ExecutorService   platformExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        server = new WireMockServer(options().dynamicPort().containerThreads(BURST_SIZE + 20).jettyAcceptQueueSize(BURST_SIZE));
+        server.start();
+        server.stubFor(get(urlEqualTo("/benchmark/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(20).withBody("ok")));
+
+        platformExecutor = Executors.newFixedThreadPool(platformThreads);
+        request = WellRestedRequest.builder()
+                                   .url("http://localhost:" + server.port() + "/benchmark/slow")
+                                   .maxConnections(BURST_SIZE)
+                                   .maxConnectionsPerRoute(BURST_SIZE)
+                                   .virtualThreads()
+                                   .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        platformExecutor.shutdownNow();
+        server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public int burst() {
+        List<CompletableFuture<WellRestedResponse>> futures = new ArrayList<>(BURST_SIZE);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            futures.add(submit());
+        }
+        int ok = 0;
+        for (CompletableFuture<WellRestedResponse> future : futures) {
+            if (future.join().getStatusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    private CompletableFuture<WellRestedResponse> submit() {
+        switch (mode) {
+            case "platform":
+                return CompletableFuture.supplyAsync(() -> request.get().submit(), platformExecutor);
+            case "virtual":
+                return request.get().submitAsync();
+            default:
+                return request.submitRequestAsync(Method.GET, null, null);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExecutionModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+package com.lindar.wellrested.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.WellRestedRequestBuilder;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sends requests at a fixed rate above what a slow backend can serve through the pool and compares the latency of the served requests:
+ * <ul>
+ * <li>queued - no limit, the requests over the pool size wait for a connection and the queue keeps growing</li>
+ * <li>shed - maxPendingRequestsPerRoute, the requests over the pool size and the queue fail straight away</li>
+ * </ul>
+ * The latency is measured from the time each request was due, so a late sender doesn't hide the queueing.
+ * <br/>
+ * It takes about 10 seconds and depends on the timing of the machine, so it only runs with the benchmark profile.
+ */
+@Tag("benchmark")
+public class LoadSheddingLoadTest {
+    private static final int CONNECTIONS    = 4;
+    private static final int BACKEND_DELAY  = 50;
+    // the pool serves 80 requests per second
+    private static final int REQUEST_RATE   = 120;
+    private static final int DURATION       = 5;
+
+    private static WireMockServer server;
+
+    @BeforeAll
+    public static void setupTests() {
+        server = new WireMockServer(options().dynamicPort().containerThreads(CONNECTIONS + 20));
+        server.start();
+        server.stubFor(get(urlEqualTo("/loadtest/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(BACKEND_DELAY).withBody("ok")));
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testSheddingKeepsTheTailLatencyOfServedRequestsLow() throws Exception {
+        LoadResult queued = run(builder());
+        LoadResult shed = run(builder().maxPendingRequestsPerRoute(CONNECTIONS));
+
+        assertTrue(shed.rejected > 0, "no request was shed, shed: " + shed);
+        assertTrue(shed.percentile(0.99) * 4 < queued.percentile(0.99), "queued: " + queued + ", shed: " + shed);
+    }
+
+    private static WellRestedRequestBuilder builder() {
+        return WellRestedRequest.builder().url("http://localhost:" + server.port() + "/loadtest/slow")
+                                .maxConnections(CONNECTIONS).maxConnectionsPerRoute(CONNECTIONS).responseTimeout(30000);
+    }
+
+    private static LoadResult run(WellRestedRequestBuilder builder) throws InterruptedException {
+        WellRestedRequest request = builder.build();
+        LoadResult result = new LoadResult();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        long interval = TimeUnit.SECONDS.toNanos(1) / REQUEST_RATE;
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUEST_RATE * DURATION; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            futures.add(request.get().submitAsync().thenAccept(response -> result.record(response, due)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        request.close();
+        return result;
+    }
+
+    private static class LoadResult {
+        private final List<Long> latencies = new ArrayList<>();
+        private int              rejected;
+
+        synchronized void record(WellRestedResponse response, long due) {
+            if (response.isConnectionRequestRejected()) {
+                rejected++;
+            } else {
+                latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - due));
+            }
+        }
+
+        synchronized long percentile(double percentile) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "served " + latencies.size() + ", rejected " + rejected
+                   + ", p50 " + percentile(0.5) + "ms, p99 " + percentile(0.99) + "ms, p999 " + percentile(0.999) + "ms";
+        }
+    }
+}
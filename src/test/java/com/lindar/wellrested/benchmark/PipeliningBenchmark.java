@@ -0,0 +1,96 @@
+package com.lindar.wellrested.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.vo.WellRestedResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Compares a burst of GET requests to one host sent through:
+ * <ul>
+ * <li>pipelined - the pipelining() option, all requests written to a single HTTP/1.1 connection</li>
+ * <li>pooled - the async client, one request per pooled connection at a time</li>
+ * </ul>
+ * The connections parameter caps the pool of the pooled mode. Run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PipeliningBenchmark {
+    private static final int BURST_SIZE = 200;
+
+    @Param({"pipelined", "pooled"})
+    public String mode;
+
+    @Param({"4"})
+    public int connections;
+
+    private WireMockServer    server;
+    private WellRestedRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        server = new WireMockServer(options().dynamicPort().containerThreads(connections + 20));
+        server.start();
+        server.stubFor(get(urlEqualTo("/benchmark/small")).willReturn(aResponse().withStatus(200).withBody("ok")));
+
+        String url = "http://localhost:" + server.port() + "/benchmark/small";
+        request = "pipelined".equals(mode)
+                  ? WellRestedRequest.builder().url(url).pipelining().build()
+                  : WellRestedRequest.builder().url(url).maxConnections(connections).maxConnectionsPerRoute(connections).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST_SIZE)
+    public int burst() {
+        List<CompletableFuture<WellRestedResponse>> futures = new ArrayList<>(BURST_SIZE);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            futures.add(request.get().submitAsync());
+        }
+        int ok = 0;
+        for (CompletableFuture<WellRestedResponse> future : futures) {
+            if (future.join().getStatusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PipeliningBenchmark.class.getSimpleName()).build()).run();
+    }
+}
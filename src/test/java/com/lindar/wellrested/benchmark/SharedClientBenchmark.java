@@ -0,0 +1,71 @@
+package com.lindar.wellrested.benchmark;
+
+import com.lindar.wellrested.LoopbackHandler;
+import com.lindar.wellrested.WellRestedRequest;
+import com.lindar.wellrested.WellRestedRequestBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of threads sharing one WellRestedRequest with threads building a new one per request,
+ * the workaround used while the global headers weren't safe to share. The requests are answered by an in-process {@link LoopbackHandler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class SharedClientBenchmark {
+    private static final String URL = "http://backend.internal:8080/benchmark/shared";
+
+    private LoopbackHandler   handler;
+    private WellRestedRequest shared;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        handler = httpRequest -> {
+            BasicClassicHttpResponse response = new BasicClassicHttpResponse(200);
+            response.setEntity(new StringEntity("ok", ContentType.TEXT_PLAIN));
+            return response;
+        };
+        shared = builder().build();
+    }
+
+    private WellRestedRequestBuilder builder() {
+        return WellRestedRequest.builder().url(URL).addJsonContentTypeGlobalHeader().addGlobalHeader("X-Client", "benchmark").loopback(handler);
+    }
+
+    @Benchmark
+    public int sharedClient() {
+        return shared.get().submit().getStatusCode();
+    }
+
+    @Benchmark
+    public int clientPerRequest() {
+        return builder().build().get().submit().getStatusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SharedClientBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.lindar.wellrested.benchmark;
+
+import com.lindar.wellrested.TlsStubServer;
+import com.lindar.wellrested.WellRestedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares https requests on new connections (the server closes every connection) when:
+ * <ul>
+ * <li>full - the cached TLS sessions are dropped before each request so every connection does a full handshake</li>
+ * <li>resumed - the TLS sessions are kept so new connections resume them</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TlsHandshakeBenchmark {
+
+    @Param({"full", "resumed"})
+    public String handshake;
+
+    @Param({"TLSv1.2", "TLSv1.3"})
+    public String protocol;
+
+    private TlsStubServer     server;
+    private SSLContext        sslContext;
+    private WellRestedRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = TlsStubServer.start();
+        sslContext = server.clientSslContext();
+        request = WellRestedRequest.builder()
+                                   .url(server.url("/benchmark/tls"))
+                                   .sslContext(sslContext)
+                                   .tlsProtocols(protocol)
+                                   .tlsSessionCacheSize(100)
+                                   .tcpNoDelay(true)
+                                   .addGlobalHeader("Connection", "close")
+                                   .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public int request() {
+        if ("full".equals(handshake)) {
+            SSLSessionContext sessions = sslContext.getClientSessionContext();
+            for (byte[] id : Collections.list(sessions.getIds())) {
+                SSLSession session = sessions.getSession(id);
+                if (session != null) {
+                    session.invalidate();
+                }
+            }
+        }
+        return request.get().submit().getStatusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TlsHandshakeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
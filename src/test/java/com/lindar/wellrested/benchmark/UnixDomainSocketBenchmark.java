@@ -0,0 +1,78 @@
+package com.lindar.wellrested.benchmark;
+
+import com.lindar.wellrested.ChannelHttpServer;
+import com.lindar.wellrested.WellRestedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of sync GET requests to a local server (same server code for both transports) through:
+ * <ul>
+ * <li>uds - the unixDomainSocket() option</li>
+ * <li>tcp - a loopback TCP connection</li>
+ * </ul>
+ * Requires Java 16+, run the main method from the test classpath on Linux.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class UnixDomainSocketBenchmark {
+    @Param({"uds", "tcp"})
+    public String transport;
+
+    private Path              socketPath;
+    private ChannelHttpServer server;
+    private WellRestedRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        if ("uds".equals(transport)) {
+            socketPath = Files.createTempDirectory("well-rested-benchmark").resolve("sidecar.sock");
+            server = ChannelHttpServer.unixDomainSocket(socketPath);
+            request = WellRestedRequest.builder().url("http://sidecar.internal/benchmark/get").unixDomainSocket(socketPath).build();
+        } else {
+            server = ChannelHttpServer.tcp();
+            request = WellRestedRequest.builder().url("http://localhost:" + server.getPort() + "/benchmark/get").maxConnectionsPerRoute(4).build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.close();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath.getParent());
+        }
+    }
+
+    @Benchmark
+    public int get() {
+        return request.get().submit().getStatusCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UnixDomainSocketBenchmark.class.getSimpleName()).build()).run();
+    }
+}